@@ -4,12 +4,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * CommandLineRunner that injects the GitHubLookupService and calls that service
- * three times to demonstrate the method is executed asynchronously.
+ * three times to demonstrate the method is executed asynchronously, then looks
+ * the same users up with the ReactiveGitHubLookupService. Finally it times
+ * lookup.concurrent-lookups concurrent lookups on the @Async service and on
+ * the timer driven ScheduledGitHubLookupService.
  */
 @Component
 public class AppRunner implements CommandLineRunner {
@@ -18,8 +24,25 @@ public class AppRunner implements CommandLineRunner {
 
 	private final GitHubLookupService gitHubLookupService;
 
-	public AppRunner(GitHubLookupService gitHubLookupService) {
+	private static final String[] LOGINS = { "PivotalSoftware", "CloudFoundry", "Spring-Projects" };
+
+	private final ReactiveGitHubLookupService reactiveGitHubLookupService;
+
+	private final ScheduledGitHubLookupService scheduledGitHubLookupService;
+
+	private final LookupScheduler lookupScheduler;
+
+	private final LookupProperties lookupProperties;
+
+	public AppRunner(GitHubLookupService gitHubLookupService,
+			ReactiveGitHubLookupService reactiveGitHubLookupService,
+			ScheduledGitHubLookupService scheduledGitHubLookupService, LookupScheduler lookupScheduler,
+			LookupProperties lookupProperties) {
 		this.gitHubLookupService = gitHubLookupService;
+		this.reactiveGitHubLookupService = reactiveGitHubLookupService;
+		this.scheduledGitHubLookupService = scheduledGitHubLookupService;
+		this.lookupScheduler = lookupScheduler;
+		this.lookupProperties = lookupProperties;
 	}
 
 	@Override
@@ -41,6 +64,33 @@ public class AppRunner implements CommandLineRunner {
 		logger.info("--> " + page2.get());
 		logger.info("--> " + page3.get());
 
+		// The same lookups without a thread per lookup
+		start = System.currentTimeMillis();
+		List<User> users = reactiveGitHubLookupService
+				.findUsers(Flux.just("PivotalSoftware", "CloudFoundry", "Spring-Projects")).collectList().block();
+		logger.info("Elapsed time (reactive): " + (System.currentTimeMillis() - start));
+		users.forEach(user -> logger.info("--> " + user));
+
+		// Many concurrent lookups, each holding a pool thread, then waiting on timers
+		int count = lookupProperties.getConcurrentLookups();
+		start = System.currentTimeMillis();
+		List<CompletableFuture<User>> lookups = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			lookups.add(gitHubLookupService.findUser(LOGINS[i % LOGINS.length]));
+		}
+		CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0])).join();
+		logger.info(count + " concurrent lookups on the task executor, elapsed time: "
+				+ (System.currentTimeMillis() - start));
+
+		start = System.currentTimeMillis();
+		lookups.clear();
+		for (int i = 0; i < count; i++) {
+			lookups.add(scheduledGitHubLookupService.findUser(LOGINS[i % LOGINS.length]));
+		}
+		CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0])).join();
+		logger.info(count + " concurrent lookups on timers, elapsed time: " + (System.currentTimeMillis() - start)
+				+ ", hedged requests: " + lookupScheduler.getHedgeCount());
+
 	}
 
 }
@@ -0,0 +1,159 @@
+package com.example.asyncmethod;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the executor that runs the @Async methods, bound from the
+ * async.executor.* properties.
+ * 
+ * 运行@Async方法的执行器的设置，绑定自async.executor.*属性。
+ */
+@ConfigurationProperties("async.executor")
+public class AsyncExecutorProperties {
+
+	/**
+	 * How the @Async methods are run.
+	 */
+	private Mode mode = Mode.PLATFORM;
+
+	/**
+	 * Number of threads the platform pool keeps.
+	 */
+	private int corePoolSize = 2;
+
+	/**
+	 * Maximum number of threads of the platform pool.
+	 */
+	private int maxPoolSize = 2;
+
+	/**
+	 * Number of tasks that may wait to run, further ones are rejected.
+	 */
+	private int queueCapacity = 500;
+
+	/**
+	 * Maximum number of tasks running at the same time in virtual mode.
+	 */
+	private int maxConcurrency = 100;
+
+	private final Adaptive adaptive = new Adaptive();
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public void setMode(Mode mode) {
+		this.mode = mode;
+	}
+
+	public int getCorePoolSize() {
+		return corePoolSize;
+	}
+
+	public void setCorePoolSize(int corePoolSize) {
+		this.corePoolSize = corePoolSize;
+	}
+
+	public int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	public void setMaxPoolSize(int maxPoolSize) {
+		this.maxPoolSize = maxPoolSize;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	public Adaptive getAdaptive() {
+		return adaptive;
+	}
+
+	public static class Adaptive {
+
+		/**
+		 * Whether the core size of the platform pool follows the queue wait.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Time tasks should wait in the queue. The core size grows while the mean
+		 * wait, or the wait of the oldest queued task, is above it and shrinks while
+		 * the queue is empty and the mean wait below half of it.
+		 */
+		private Duration targetQueueWait = Duration.ofMillis(100);
+
+		/**
+		 * Time between two adjustments of the core size.
+		 */
+		private Duration interval = Duration.ofSeconds(5);
+
+		/**
+		 * Maximum core size, the core-pool-size is the minimum.
+		 */
+		private int maxCorePoolSize = 16;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getTargetQueueWait() {
+			return targetQueueWait;
+		}
+
+		public void setTargetQueueWait(Duration targetQueueWait) {
+			this.targetQueueWait = targetQueueWait;
+		}
+
+		public Duration getInterval() {
+			return interval;
+		}
+
+		public void setInterval(Duration interval) {
+			this.interval = interval;
+		}
+
+		public int getMaxCorePoolSize() {
+			return maxCorePoolSize;
+		}
+
+		public void setMaxCorePoolSize(int maxCorePoolSize) {
+			this.maxCorePoolSize = maxCorePoolSize;
+		}
+
+	}
+
+	public enum Mode {
+
+		/**
+		 * A pool of platform threads, whose size limits the concurrency.
+		 */
+		PLATFORM,
+
+		/**
+		 * A virtual thread per task, with max-concurrency limiting the concurrency.
+		 */
+		VIRTUAL
+
+	}
+
+}
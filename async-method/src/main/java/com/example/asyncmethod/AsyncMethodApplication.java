@@ -2,10 +2,13 @@ package com.example.asyncmethod;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import java.util.concurrent.Executor;
 
 /**
@@ -21,9 +24,21 @@ import java.util.concurrent.Executor;
  * 
  * 此类还通过定义新bean来自定义Executor。在这里，该方法名为taskExecutor，因为这是Spring搜索的特定方法名称。
  * 如果没有定义Executor bean，Spring将创建SimpleAsyncTaskExecutor并使用它。
+ * 
+ * With async.executor.mode=virtual the executor runs each invocation on a
+ * virtual thread instead, at most async.executor.max-concurrency at a time.
+ * 
+ * 当async.executor.mode=virtual时，执行器改为在虚拟线程上运行每次调用，
+ * 同时最多运行async.executor.max-concurrency个。
+ * 
+ * Either executor is wrapped in an InstrumentedTaskExecutor, which publishes
+ * its metrics and can adapt the size of the platform pool.
+ * 
+ * 两种执行器都由InstrumentedTaskExecutor包装，它会发布执行器的指标，并可以自适应调整平台线程池的大小。
  */
 @SpringBootApplication
 @EnableAsync
+@EnableConfigurationProperties({ AsyncExecutorProperties.class, GitHubProperties.class, LookupProperties.class })
 public class AsyncMethodApplication {
 
 	public static void main(String[] args) {
@@ -32,13 +47,22 @@ public class AsyncMethodApplication {
 	}
 
 	@Bean
-	public Executor taskExecutor() {
+	public InstrumentedTaskExecutor taskExecutor(AsyncExecutorProperties properties, MeterRegistry registry) {
+		return new InstrumentedTaskExecutor("taskExecutor", createExecutor(properties),
+				properties.getQueueCapacity(), registry, properties.getAdaptive());
+	}
+
+	private Executor createExecutor(AsyncExecutorProperties properties) {
+		if (properties.getMode() == AsyncExecutorProperties.Mode.VIRTUAL) {
+			return new VirtualThreadTaskExecutor("GithubLookup-", properties.getMaxConcurrency(),
+					properties.getQueueCapacity());
+		}
 		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-		executor.setCorePoolSize(2);
+		executor.setCorePoolSize(properties.getCorePoolSize());
 		// the number of concurrent threads
-		executor.setMaxPoolSize(2);
+		executor.setMaxPoolSize(properties.getMaxPoolSize());
 		// limit the size of the queue
-		executor.setQueueCapacity(500);
+		executor.setQueueCapacity(properties.getQueueCapacity());
 		executor.setThreadNamePrefix("GithubLookup-");
 		executor.initialize();
 		return executor;
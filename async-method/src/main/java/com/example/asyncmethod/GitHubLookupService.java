@@ -3,11 +3,16 @@ package com.example.asyncmethod;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * The class uses Spring’s RestTemplate to invoke a remote REST point
@@ -24,6 +29,12 @@ import java.util.concurrent.CompletableFuture;
  * Spring’s component scanning to detect and add to the application context.
  * 
  * 该类标记有@Service批注，使其成为Spring组件扫描以检测并添加到应用程序上下文的候选对象。
+ * 
+ * Users already looked up are revalidated with conditional requests through
+ * the UserResponseCache, and concurrent lookups of the same user share one
+ * request.
+ * 
+ * 已查询过的用户通过UserResponseCache以条件请求重新验证，同一用户的并发查询共享一个请求。
  */
 @Service
 public class GitHubLookupService {
@@ -32,8 +43,15 @@ public class GitHubLookupService {
 
 	private final RestTemplate restTemplate;
 
-	public GitHubLookupService(RestTemplateBuilder restTemplateBuilder) {
+	private final String baseUrl;
+
+	private final UserResponseCache userCache;
+
+	public GitHubLookupService(RestTemplateBuilder restTemplateBuilder, GitHubProperties properties,
+			UserResponseCache userCache) {
 		this.restTemplate = restTemplateBuilder.build();
+		this.baseUrl = properties.getBaseUrl();
+		this.userCache = userCache;
 	}
 
 	/**
@@ -64,11 +82,26 @@ public class GitHubLookupService {
 	@Async
 	public CompletableFuture<User> findUser(String user) throws InterruptedException {
 		logger.info("Looking up " + user);
-		String url = String.format("https://api.github.com/users/%s", user);
-		User results = restTemplate.getForObject(url, User.class);
+		User results;
+		try {
+			results = userCache.deduplicate(user, () -> CompletableFuture.completedFuture(fetch(user))).get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+					: new IllegalStateException(e.getCause());
+		}
 		// Artificial delay of 1s for demonstration purposes
 		Thread.sleep(1000L);
 		return CompletableFuture.completedFuture(results);
 	}
 
+	private User fetch(String user) {
+		String url = String.format("%s/users/%s", baseUrl, user);
+		HttpHeaders headers = new HttpHeaders();
+		UserResponseCache.CachedUser revalidated = userCache.addConditions(user, headers);
+		ResponseEntity<User> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+				User.class);
+		return userCache.update(user, revalidated, response.getStatusCode(), response.getHeaders(),
+				response.getBody());
+	}
+
 }
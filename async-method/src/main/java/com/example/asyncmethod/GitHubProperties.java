@@ -0,0 +1,136 @@
+package com.example.asyncmethod;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the GitHub API clients, bound from the github.* properties.
+ * 
+ * GitHub API客户端的设置，绑定自github.*属性。
+ */
+@ConfigurationProperties("github")
+public class GitHubProperties {
+
+	/**
+	 * Base URL of the GitHub API.
+	 */
+	private String baseUrl = "https://api.github.com";
+
+	/**
+	 * Maximum number of pooled connections of the reactive client.
+	 */
+	private int maxConnections = 50;
+
+	/**
+	 * Maximum number of lookups of a batch that are in flight at a time.
+	 */
+	private int maxInFlight = 16;
+
+	/**
+	 * How long a single request may take before it is retried.
+	 */
+	private Duration timeout = Duration.ofSeconds(5);
+
+	/**
+	 * Number of retries of a request that timed out or failed with an I/O or
+	 * server error. Other error responses are not retried.
+	 */
+	private int retries = 3;
+
+	/**
+	 * Backoff before the first retry, doubled for each further retry.
+	 */
+	private Duration firstBackoff = Duration.ofMillis(100);
+
+	/**
+	 * Maximum backoff between two retries.
+	 */
+	private Duration maxBackoff = Duration.ofSeconds(2);
+
+	/**
+	 * Fraction of each backoff that is randomized, so that clients do not retry
+	 * in lockstep.
+	 */
+	private double jitter = 0.5;
+
+	/**
+	 * Maximum number of users cached with their ETag and Last-Modified headers,
+	 * so that looking them up again is a conditional request. No users are
+	 * cached if 0.
+	 */
+	private int cacheSize = 1000;
+
+	public String getBaseUrl() {
+		return baseUrl;
+	}
+
+	public void setBaseUrl(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+	public int getRetries() {
+		return retries;
+	}
+
+	public void setRetries(int retries) {
+		this.retries = retries;
+	}
+
+	public Duration getFirstBackoff() {
+		return firstBackoff;
+	}
+
+	public void setFirstBackoff(Duration firstBackoff) {
+		this.firstBackoff = firstBackoff;
+	}
+
+	public Duration getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public void setMaxBackoff(Duration maxBackoff) {
+		this.maxBackoff = maxBackoff;
+	}
+
+	public double getJitter() {
+		return jitter;
+	}
+
+	public void setJitter(double jitter) {
+		this.jitter = jitter;
+	}
+
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	public void setCacheSize(int cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+}
@@ -0,0 +1,300 @@
+package com.example.asyncmethod;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Decorates the executor of the @Async methods to measure it. Every task is
+ * timed from submission to start (executor.queue.wait) and from start to end
+ * (executor.execution), and the decorator counts the queued, active, completed
+ * and rejected tasks, all tagged with the executor name and mode. It warns
+ * when the queue is 80% full and, at most every 10 seconds, when tasks are
+ * rejected, so a saturated executor shows up before and while callers fail.
+ * 
+ * 装饰运行@Async方法的执行器以对其进行度量。每个任务从提交到开始（executor.queue.wait）
+ * 以及从开始到结束（executor.execution）都会计时，装饰器还会统计排队、活动、已完成和被拒绝的任务，
+ * 所有指标都带有执行器名称和模式标签。当队列达到80%时会发出警告，任务被拒绝时最多每10秒警告一次，
+ * 这样执行器饱和时在调用方失败之前和期间都能被发现。
+ * 
+ * In adaptive mode the core size of a platform pool follows the queue wait:
+ * it grows by half while the mean wait of the tasks started in the last
+ * interval, or the wait so far of the oldest queued task, is above the target.
+ * The latter keeps a saturated pool, which starts no tasks, from reading as
+ * idle. It shrinks by one while the queue is empty and the mean wait is below
+ * half of the target.
+ * 
+ * 在自适应模式下，平台线程池的核心大小跟随排队等待时间：当上一个间隔内开始的任务的平均等待时间，
+ * 或队列中最老任务已等待的时间高于目标时增加一半。后者避免了不再开始任何任务的饱和线程池被误认为空闲。
+ * 当队列为空且平均等待时间低于目标一半时减少一个。
+ */
+public class InstrumentedTaskExecutor implements TaskExecutor, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(InstrumentedTaskExecutor.class);
+
+	private static final long REJECTION_WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private final String name;
+
+	private final Executor delegate;
+
+	private final int queueCapacity;
+
+	private final AsyncExecutorProperties.Adaptive adaptive;
+
+	// the configured sizes of a platform pool, which adaptive mode starts from
+	private final int minCorePoolSize;
+
+	private final int maxPoolSize;
+
+	private final Timer queueWait;
+
+	private final Timer execution;
+
+	private final LongAdder submitted = new LongAdder();
+
+	private final LongAdder started = new LongAdder();
+
+	private final LongAdder completed = new LongAdder();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private final LongAdder intervalWaits = new LongAdder();
+
+	private final LongAdder intervalWaitNanos = new LongAdder();
+
+	private final AtomicBoolean queueAlmostFull = new AtomicBoolean();
+
+	private final AtomicLong lastRejectionWarning = new AtomicLong(System.nanoTime() - REJECTION_WARNING_INTERVAL_NANOS);
+
+	private final AtomicLong rejectedSinceWarning = new AtomicLong();
+
+	private final ScheduledExecutorService tuner;
+
+	/**
+	 * @param name          the name of the executor, used as the name tag
+	 * @param delegate      the executor running the tasks
+	 * @param queueCapacity the number of tasks that may wait in the delegate
+	 * @param registry      the registry of the meters
+	 * @param adaptive      the settings of the adaptive mode, which only applies
+	 *                      to a ThreadPoolTaskExecutor
+	 */
+	public InstrumentedTaskExecutor(String name, Executor delegate, int queueCapacity, MeterRegistry registry,
+			AsyncExecutorProperties.Adaptive adaptive) {
+		this.name = name;
+		this.delegate = delegate;
+		this.queueCapacity = queueCapacity;
+		this.adaptive = adaptive;
+		Tags tags = Tags.of("name", name, "mode", getMode());
+		this.queueWait = Timer.builder("executor.queue.wait").tags(tags)
+				.description("Time tasks waited between submission and start").publishPercentiles(0.5, 0.95, 0.99)
+				.register(registry);
+		this.execution = Timer.builder("executor.execution").tags(tags).description("Time tasks took to run")
+				.publishPercentiles(0.5, 0.95, 0.99).register(registry);
+		Gauge.builder("executor.queued", this, InstrumentedTaskExecutor::getQueuedCount).tags(tags)
+				.description("Tasks waiting to run").baseUnit("tasks").register(registry);
+		Gauge.builder("executor.active", this, InstrumentedTaskExecutor::getActiveCount).tags(tags)
+				.description("Tasks running").baseUnit("tasks").register(registry);
+		FunctionCounter.builder("executor.completed", this, InstrumentedTaskExecutor::getCompletedCount).tags(tags)
+				.description("Tasks that ran").baseUnit("tasks").register(registry);
+		FunctionCounter.builder("executor.rejected", this, InstrumentedTaskExecutor::getRejectedCount).tags(tags)
+				.description("Tasks the executor did not accept").baseUnit("tasks").register(registry);
+		if (delegate instanceof ThreadPoolTaskExecutor) {
+			ThreadPoolTaskExecutor pool = (ThreadPoolTaskExecutor) delegate;
+			this.minCorePoolSize = pool.getCorePoolSize();
+			this.maxPoolSize = pool.getMaxPoolSize();
+			Gauge.builder("executor.pool.core", pool, ThreadPoolTaskExecutor::getCorePoolSize).tags(tags)
+					.description("Core size of the pool").baseUnit("threads").register(registry);
+			Gauge.builder("executor.pool.size", pool, ThreadPoolTaskExecutor::getPoolSize).tags(tags)
+					.description("Threads of the pool").baseUnit("threads").register(registry);
+		} else {
+			this.minCorePoolSize = 0;
+			this.maxPoolSize = 0;
+		}
+		if (adaptive.isEnabled() && delegate instanceof ThreadPoolTaskExecutor) {
+			tuner = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(name + "-tuner-"));
+			long interval = adaptive.getInterval().toNanos();
+			tuner.scheduleWithFixedDelay(this::adjustCorePoolSize, interval, interval, TimeUnit.NANOSECONDS);
+		} else {
+			if (adaptive.isEnabled()) {
+				logger.info("Adaptive mode only applies to a platform pool, {} is not one", name);
+			}
+			tuner = null;
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getMode() {
+		return delegate instanceof VirtualThreadTaskExecutor && ((VirtualThreadTaskExecutor) delegate).isVirtual()
+				? "virtual"
+				: "platform";
+	}
+
+	public Executor getDelegate() {
+		return delegate;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public boolean isAdaptive() {
+		return tuner != null;
+	}
+
+	public long getQueuedCount() {
+		return submitted.sum() - started.sum();
+	}
+
+	public long getActiveCount() {
+		return started.sum() - completed.sum();
+	}
+
+	public long getCompletedCount() {
+		return completed.sum();
+	}
+
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	public Timer getQueueWait() {
+		return queueWait;
+	}
+
+	public Timer getExecution() {
+		return execution;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		long submittedAt = System.nanoTime();
+		submitted.increment();
+		try {
+			delegate.execute(new Submitted(task, submittedAt));
+		} catch (RejectedExecutionException e) {
+			// TaskRejectedException is one too
+			submitted.decrement();
+			rejected.increment();
+			warnRejected();
+			throw e;
+		}
+		long queued = getQueuedCount();
+		if (queued >= queueCapacity * 0.8) {
+			if (queueAlmostFull.compareAndSet(false, true)) {
+				logger.warn("{} has {} of {} queue slots taken, tasks will be rejected once it is full", name,
+						queued, queueCapacity);
+			}
+		} else if (queued < queueCapacity / 2) {
+			queueAlmostFull.set(false);
+		}
+	}
+
+	private void run(Runnable task, long submittedAt) {
+		long startedAt = System.nanoTime();
+		started.increment();
+		queueWait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+		intervalWaits.increment();
+		intervalWaitNanos.add(startedAt - submittedAt);
+		try {
+			task.run();
+		} finally {
+			execution.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+			completed.increment();
+		}
+	}
+
+	private void warnRejected() {
+		long count = rejectedSinceWarning.incrementAndGet();
+		long now = System.nanoTime();
+		long last = lastRejectionWarning.get();
+		if (now - last >= REJECTION_WARNING_INTERVAL_NANOS && lastRejectionWarning.compareAndSet(last, now)) {
+			rejectedSinceWarning.addAndGet(-count);
+			logger.warn("{} rejected {} tasks, its queue of {} is full", name, count, queueCapacity);
+		}
+	}
+
+	// grows the core size by half while tasks wait too long, shrinks it by one while they hardly wait
+	void adjustCorePoolSize() {
+		ThreadPoolTaskExecutor pool = (ThreadPoolTaskExecutor) delegate;
+		long waits = intervalWaits.sumThenReset();
+		long waitNanos = intervalWaitNanos.sumThenReset();
+		long meanWait = waits == 0 ? 0 : waitNanos / waits;
+		// a saturated pool starts few or no tasks, so its queue tells how long they wait
+		long oldestWait = oldestQueuedWait(pool);
+		long wait = Math.max(meanWait, oldestWait);
+		long target = adaptive.getTargetQueueWait().toNanos();
+		int core = pool.getCorePoolSize();
+		if (wait > target && core < adaptive.getMaxCorePoolSize()) {
+			int grown = Math.min(adaptive.getMaxCorePoolSize(), core + Math.max(1, core / 2));
+			if (pool.getMaxPoolSize() < grown) {
+				pool.setMaxPoolSize(grown);
+			}
+			pool.setCorePoolSize(grown);
+			logger.info("Grew the core size of {} from {} to {}, tasks waited {} ms on average and {} ms at most",
+					name, core, grown, TimeUnit.NANOSECONDS.toMillis(meanWait),
+					TimeUnit.NANOSECONDS.toMillis(oldestWait));
+		} else if (meanWait < target / 2 && getQueuedCount() == 0 && core > minCorePoolSize) {
+			pool.setCorePoolSize(core - 1);
+			pool.setMaxPoolSize(Math.max(core - 1, maxPoolSize));
+			logger.debug("Shrank the core size of {} from {} to {}", name, core, core - 1);
+		}
+	}
+
+	// the time the task at the head of the queue has waited so far, or 0 if none waits
+	private static long oldestQueuedWait(ThreadPoolTaskExecutor pool) {
+		Runnable oldest = pool.getThreadPoolExecutor().getQueue().peek();
+		return oldest instanceof Submitted ? System.nanoTime() - ((Submitted) oldest).submittedAt : 0;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (tuner != null) {
+			tuner.shutdownNow();
+		}
+		if (delegate instanceof DisposableBean) {
+			((DisposableBean) delegate).destroy();
+		}
+	}
+
+	// a task with its submission time, which the tuner reads off the head of the queue
+	private final class Submitted implements Runnable {
+
+		private final Runnable task;
+
+		private final long submittedAt;
+
+		Submitted(Runnable task, long submittedAt) {
+			this.task = task;
+			this.submittedAt = submittedAt;
+		}
+
+		@Override
+		public void run() {
+			InstrumentedTaskExecutor.this.run(task, submittedAt);
+		}
+
+	}
+
+}
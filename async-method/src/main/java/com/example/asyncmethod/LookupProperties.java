@@ -0,0 +1,110 @@
+package com.example.asyncmethod;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the timer driven lookups of the ScheduledGitHubLookupService,
+ * bound from the lookup.* properties.
+ * 
+ * ScheduledGitHubLookupService中由定时器驱动的查询的设置，绑定自lookup.*属性。
+ */
+@ConfigurationProperties("lookup")
+public class LookupProperties {
+
+	/**
+	 * Artificial delay added to every lookup, like the sleep of the
+	 * GitHubLookupService.
+	 */
+	private Duration delay = Duration.ofSeconds(1);
+
+	/**
+	 * Number of requests per second the lookups may send on average, counting
+	 * retries and hedged requests.
+	 */
+	private double permitsPerSecond = 20;
+
+	/**
+	 * Number of requests that may be sent at once after an idle period.
+	 */
+	private int burst = 10;
+
+	/**
+	 * Whether a second request is sent when the first has not answered within
+	 * the hedge percentile of the recent latencies.
+	 */
+	private boolean hedge = true;
+
+	/**
+	 * Percentile of the recent latencies after which a request is hedged.
+	 */
+	private double hedgePercentile = 0.95;
+
+	/**
+	 * Delay before hedging while too few latencies have been measured.
+	 */
+	private Duration initialHedgeDelay = Duration.ofMillis(500);
+
+	/**
+	 * Number of lookups the AppRunner runs at the same time on each service.
+	 */
+	private int concurrentLookups = 12;
+
+	public Duration getDelay() {
+		return delay;
+	}
+
+	public void setDelay(Duration delay) {
+		this.delay = delay;
+	}
+
+	public double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+
+	public void setPermitsPerSecond(double permitsPerSecond) {
+		this.permitsPerSecond = permitsPerSecond;
+	}
+
+	public int getBurst() {
+		return burst;
+	}
+
+	public void setBurst(int burst) {
+		this.burst = burst;
+	}
+
+	public boolean isHedge() {
+		return hedge;
+	}
+
+	public void setHedge(boolean hedge) {
+		this.hedge = hedge;
+	}
+
+	public double getHedgePercentile() {
+		return hedgePercentile;
+	}
+
+	public void setHedgePercentile(double hedgePercentile) {
+		this.hedgePercentile = hedgePercentile;
+	}
+
+	public Duration getInitialHedgeDelay() {
+		return initialHedgeDelay;
+	}
+
+	public void setInitialHedgeDelay(Duration initialHedgeDelay) {
+		this.initialHedgeDelay = initialHedgeDelay;
+	}
+
+	public int getConcurrentLookups() {
+		return concurrentLookups;
+	}
+
+	public void setConcurrentLookups(int concurrentLookups) {
+		this.concurrentLookups = concurrentLookups;
+	}
+
+}
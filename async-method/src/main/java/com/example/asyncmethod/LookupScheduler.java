@@ -0,0 +1,221 @@
+package com.example.asyncmethod;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delays, rate limits, retries and hedges asynchronous lookups with timers
+ * instead of sleeping threads. Every wait is a task scheduled on a single
+ * timer thread that completes a CompletableFuture, so a waiting lookup holds
+ * no thread at all. What runs on the timer thread must therefore not block.
+ * 
+ * 用定时器而不是休眠线程来延迟、限流、重试和对冲异步查询。每次等待都是在单个定时器线程上安排的任务，
+ * 由它完成一个CompletableFuture，因此等待中的查询不占用任何线程。所以在定时器线程上运行的代码不能阻塞。
+ * 
+ * Hedging sends a second attempt when the first one has not answered within
+ * the lookup.hedge-percentile of the latencies of the last attempts, and
+ * takes whichever answers first. The second attempt waits for a permit of the
+ * rate limiter like any other request.
+ * 
+ * 对冲是指当第一次尝试在最近尝试延迟的lookup.hedge-percentile分位内没有响应时，发送第二次尝试，
+ * 并采用最先响应的结果。第二次尝试与其他请求一样需要先从限流器获得许可。
+ */
+@Component
+public class LookupScheduler implements DisposableBean {
+
+	private static final int WINDOW = 1000;
+
+	private static final int MIN_SAMPLES = 20;
+
+	private final ScheduledThreadPoolExecutor timer;
+
+	private final LookupProperties properties;
+
+	private final RetryPolicy retryPolicy;
+
+	private final long permitIntervalNanos;
+
+	private long theoreticalArrivalNanos = System.nanoTime();
+
+	private final long[] latencies = new long[WINDOW];
+
+	private int samples;
+
+	private long hedgeDelayNanos;
+
+	private final LongAdder hedges = new LongAdder();
+
+	public LookupScheduler(LookupProperties properties, GitHubProperties retryProperties) {
+		this.timer = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("lookup-timer-"));
+		this.timer.setRemoveOnCancelPolicy(true);
+		this.properties = properties;
+		this.retryPolicy = new RetryPolicy(retryProperties);
+		this.permitIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getPermitsPerSecond());
+		this.hedgeDelayNanos = properties.getInitialHedgeDelay().toNanos();
+	}
+
+	/**
+	 * Returns the number of second attempts sent by {@link #hedge(Supplier)}.
+	 */
+	public long getHedgeCount() {
+		return hedges.sum();
+	}
+
+	/**
+	 * Returns a future that completes after the given delay.
+	 */
+	public CompletableFuture<Void> delay(Duration delay) {
+		return delay(delay.toNanos());
+	}
+
+	private CompletableFuture<Void> delay(long nanos) {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		if (nanos <= 0) {
+			future.complete(null);
+		} else {
+			timer.schedule(() -> future.complete(null), nanos, TimeUnit.NANOSECONDS);
+		}
+		return future;
+	}
+
+	/**
+	 * Returns a future that completes when a request may be sent under a token
+	 * bucket of lookup.burst tokens refilled at lookup.permits-per-second. Callers
+	 * are admitted in the order they call. Every request needs its own permit,
+	 * including retries and the second attempts of {@link #hedge(Supplier)}.
+	 */
+	public CompletableFuture<Void> acquire() {
+		long now = System.nanoTime();
+		long wait;
+		// the generic cell rate algorithm, the token bucket as a single timestamp
+		synchronized (this) {
+			theoreticalArrivalNanos = Math.max(theoreticalArrivalNanos, now);
+			wait = theoreticalArrivalNanos - (properties.getBurst() - 1) * permitIntervalNanos - now;
+			theoreticalArrivalNanos += permitIntervalNanos;
+		}
+		return delay(wait);
+	}
+
+	/**
+	 * Runs the attempt until it succeeds, at most github.retries more times,
+	 * waiting a jittered exponential backoff before each retry. Only timeouts,
+	 * I/O errors and server errors are retried, see {@link RetryPolicy}.
+	 */
+	public <T> CompletableFuture<T> retry(Supplier<CompletableFuture<T>> attempt) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		retry(attempt, 0, result);
+		return result;
+	}
+
+	private <T> void retry(Supplier<CompletableFuture<T>> attempt, int retry, CompletableFuture<T> result) {
+		start(attempt).whenComplete((value, failure) -> {
+			if (failure == null) {
+				result.complete(value);
+			} else if (!retryPolicy.shouldRetry(failure, retry)) {
+				result.completeExceptionally(failure);
+			} else {
+				timer.schedule(() -> retry(attempt, retry + 1, result), retryPolicy.backoffNanos(retry),
+						TimeUnit.NANOSECONDS);
+			}
+		});
+	}
+
+	/**
+	 * Runs the attempt, and runs it a second time if the first has not completed
+	 * within the hedge delay. The result is the first success, or the last
+	 * failure if both attempts fail. The slower attempt is cancelled.
+	 *
+	 * The caller acquires the permit of the first attempt, the second attempt is
+	 * only sent once {@link #acquire()} grants it one. A second attempt that is no
+	 * longer needed by then is not sent, its permit goes unused.
+	 */
+	public <T> CompletableFuture<T> hedge(Supplier<CompletableFuture<T>> attempt) {
+		if (!properties.isHedge()) {
+			return timed(attempt);
+		}
+		CompletableFuture<T> result = new CompletableFuture<>();
+		AtomicInteger running = new AtomicInteger(1);
+		CompletableFuture<T> first = timed(attempt);
+		settle(first, result, running);
+		ScheduledFuture<?> second = timer.schedule(() -> {
+			if (!result.isDone()) {
+				acquire().thenRun(() -> {
+					// the first attempt may have completed while waiting for the permit
+					if (!result.isDone()) {
+						running.incrementAndGet();
+						hedges.increment();
+						CompletableFuture<T> hedged = timed(attempt);
+						settle(hedged, result, running);
+						result.whenComplete((value, failure) -> hedged.cancel(false));
+					}
+				});
+			}
+		}, hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+		result.whenComplete((value, failure) -> {
+			second.cancel(false);
+			first.cancel(false);
+		});
+		return result;
+	}
+
+	private static <T> void settle(CompletableFuture<T> attempt, CompletableFuture<T> result, AtomicInteger running) {
+		attempt.whenComplete((value, failure) -> {
+			if (failure == null) {
+				result.complete(value);
+			} else if (running.decrementAndGet() == 0) {
+				result.completeExceptionally(failure);
+			}
+		});
+	}
+
+	// runs the attempt and records its latency if it succeeds
+	private <T> CompletableFuture<T> timed(Supplier<CompletableFuture<T>> attempt) {
+		long start = System.nanoTime();
+		CompletableFuture<T> future = start(attempt);
+		future.thenRun(() -> record(System.nanoTime() - start));
+		return future;
+	}
+
+	private static <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> attempt) {
+		try {
+			return attempt.get();
+		} catch (RuntimeException e) {
+			CompletableFuture<T> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+	}
+
+	private synchronized void record(long latencyNanos) {
+		latencies[samples % WINDOW] = latencyNanos;
+		samples++;
+		// the percentile is recomputed every few samples rather than per lookup
+		if (samples >= MIN_SAMPLES && samples % 16 == 0) {
+			long[] window = Arrays.copyOf(latencies, Math.min(samples, WINDOW));
+			Arrays.sort(window);
+			int index = (int) Math.ceil(properties.getHedgePercentile() * window.length) - 1;
+			hedgeDelayNanos = window[Math.max(0, index)];
+		}
+	}
+
+	private synchronized long hedgeDelayNanos() {
+		return hedgeDelayNanos;
+	}
+
+	@Override
+	public void destroy() {
+		timer.shutdownNow();
+	}
+
+}
@@ -0,0 +1,157 @@
+package com.example.asyncmethod;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Looks users up like the GitHubLookupService, but without blocking a thread
+ * per lookup: the requests go through a WebClient over a pool of at most
+ * github.max-connections connections, and the responses are handled on the
+ * few event loop threads of the client. Thousands of lookups therefore need a
+ * handful of threads, not one thread each.
+ * 
+ * 与GitHubLookupService一样查询用户，但不会为每次查询阻塞一个线程：请求通过WebClient发送，
+ * 使用最多github.max-connections个连接的连接池，响应在客户端少量的事件循环线程上处理。
+ * 因此成千上万次查询只需要少量线程，而不是每次查询一个线程。
+ * 
+ * Each request times out after github.timeout and is retried when it times
+ * out or fails with an I/O or server error, with an exponential backoff whose
+ * delays are randomized by github.jitter. Other error responses fail the
+ * lookup right away, and a user that does not exist (404) completes it empty.
+ * 
+ * 每个请求在github.timeout后超时，超时或因I/O错误、服务器错误失败时会重试，重试使用指数退避，
+ * 其延迟按github.jitter随机化。其他错误响应会使查询立即失败，不存在的用户（404）则使查询以空结果完成。
+ * 
+ * Like the GitHubLookupService, it revalidates users already looked up with
+ * conditional requests through the UserResponseCache, and concurrent lookups
+ * of the same user share one request.
+ * 
+ * 与GitHubLookupService一样，它通过UserResponseCache以条件请求重新验证已查询过的用户，
+ * 同一用户的并发查询共享一个请求。
+ */
+@Service
+public class ReactiveGitHubLookupService implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReactiveGitHubLookupService.class);
+
+	private final ConnectionProvider connections;
+
+	private final WebClient webClient;
+
+	private final GitHubProperties properties;
+
+	private final UserResponseCache userCache;
+
+	private final RetryPolicy retryPolicy;
+
+	public ReactiveGitHubLookupService(WebClient.Builder webClientBuilder, GitHubProperties properties,
+			UserResponseCache userCache) {
+		this.connections = ConnectionProvider.fixed("github", properties.getMaxConnections());
+		this.webClient = webClientBuilder.baseUrl(properties.getBaseUrl())
+				.clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections))).build();
+		this.properties = properties;
+		this.userCache = userCache;
+		this.retryPolicy = new RetryPolicy(properties);
+	}
+
+	/**
+	 * Looks up a user, the Mono is empty if there is no such user. Nothing is
+	 * sent until the Mono is subscribed to.
+	 * 
+	 * 查询一个用户，如果没有该用户，Mono为空。在订阅Mono之前不会发送任何请求。
+	 */
+	public Mono<User> findUser(String user) {
+		return Mono.defer(() -> Mono.fromFuture(userCache.deduplicate(user, () -> request(user).toFuture())));
+	}
+
+	private Mono<User> request(String user) {
+		// retryBackoff of this Reactor version retries every error, so the retries are counted here
+		return attempt(user).retryWhen(failures -> failures.index().concatMap(failure -> {
+			int retry = failure.getT1().intValue();
+			if (!retryPolicy.shouldRetry(failure.getT2(), retry)) {
+				return Mono.error(failure.getT2());
+			}
+			return Mono.delay(Duration.ofNanos(retryPolicy.backoffNanos(retry)));
+		}));
+	}
+
+	/**
+	 * Sends a single request for a user, which times out after github.timeout.
+	 * Unlike {@link #findUser(String)} it is neither retried nor shared with
+	 * concurrent lookups, for callers that schedule their own attempts.
+	 * 
+	 * 发送一个查询用户的请求，在github.timeout后超时。与findUser不同，它既不重试，
+	 * 也不与并发查询共享，供自行安排尝试的调用方使用。
+	 */
+	public Mono<User> attempt(String user) {
+		return Mono.defer(() -> {
+			HttpHeaders headers = new HttpHeaders();
+			UserResponseCache.CachedUser revalidated = userCache.addConditions(user, headers);
+			return webClient.get().uri("/users/{user}", user).headers(request -> request.addAll(headers)).exchange()
+					.flatMap(response -> {
+						HttpStatus status = response.statusCode();
+						if (status == HttpStatus.NOT_FOUND) {
+							// a user that does not exist is not worth retrying
+							userCache.evict(user);
+							return response.releaseBody().then(Mono.<User>empty());
+						}
+						if (status.isError()) {
+							return response.createException().flatMap(Mono::<User>error);
+						}
+						HttpHeaders responseHeaders = response.headers().asHttpHeaders();
+						if (status == HttpStatus.NOT_MODIFIED) {
+							return response.releaseBody().then(Mono.fromSupplier(
+									() -> userCache.update(user, revalidated, status, responseHeaders, null)));
+						}
+						return response.bodyToMono(User.class)
+								.map(body -> userCache.update(user, revalidated, status, responseHeaders, body));
+					}).timeout(properties.getTimeout());
+		}).doOnSubscribe(subscription -> logger.debug("Looking up {}", user));
+	}
+
+	/**
+	 * Looks up a user right away, completing the future without blocking a
+	 * thread, with null if there is no such user.
+	 * 
+	 * 立即查询一个用户，在不阻塞线程的情况下完成CompletableFuture，如果没有该用户则结果为null。
+	 */
+	public CompletableFuture<User> findUserAsync(String user) {
+		return findUser(user).toFuture();
+	}
+
+	/**
+	 * Looks up the given users, at most github.max-in-flight at a time, and
+	 * emits them in the order of the logins. Users that do not exist, and
+	 * users that cannot be looked up even after retries, are left out; the
+	 * latter are logged.
+	 * 
+	 * 查询给定的用户，同时最多github.max-in-flight个，并按登录名的顺序发出结果。
+	 * 不存在的用户以及重试后仍无法查询的用户会被跳过，后者会被记录。
+	 */
+	public Flux<User> findUsers(Flux<String> users) {
+		return users.flatMapSequential(user -> findUser(user).onErrorResume(e -> {
+			logger.warn("Failed to look up {}: {}", user, e.toString());
+			return Mono.empty();
+		}), properties.getMaxInFlight());
+	}
+
+	@Override
+	public void destroy() {
+		connections.dispose();
+	}
+
+}
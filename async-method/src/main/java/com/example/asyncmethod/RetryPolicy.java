@@ -0,0 +1,59 @@
+package com.example.asyncmethod;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Decides which failed lookup requests are retried, and after which backoff.
+ * Only timeouts, I/O errors and server errors (5xx) are retried; other error
+ * responses, such as a 403 or 429 from the rate limit, fail right away, since
+ * retrying them would only use up more of the limit.
+ * 
+ * 决定哪些失败的查询请求会被重试，以及重试前的退避时间。只有超时、I/O错误和服务器错误（5xx）会被重试；
+ * 其他错误响应（例如限流返回的403或429）会立即失败，因为重试只会消耗更多的配额。
+ */
+final class RetryPolicy {
+
+	private final GitHubProperties properties;
+
+	RetryPolicy(GitHubProperties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Returns whether a request that failed with the given error, after the
+	 * given number of retries, is retried.
+	 */
+	boolean shouldRetry(Throwable failure, int retries) {
+		return retries < properties.getRetries() && isRetryable(failure);
+	}
+
+	static boolean isRetryable(Throwable failure) {
+		Throwable cause = failure;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+				&& cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		if (cause instanceof WebClientResponseException) {
+			return ((WebClientResponseException) cause).getStatusCode().is5xxServerError();
+		}
+		return cause instanceof TimeoutException || cause instanceof IOException;
+	}
+
+	/**
+	 * Returns the backoff before the given retry, counted from 0: github.first-backoff
+	 * doubled for each earlier retry, at most github.max-backoff, and shortened by
+	 * a random fraction of up to github.jitter.
+	 */
+	long backoffNanos(int retry) {
+		long backoff = Math.min(properties.getMaxBackoff().toNanos(),
+				properties.getFirstBackoff().toNanos() << Math.min(retry, 30));
+		return (long) (backoff * (1 - properties.getJitter() * ThreadLocalRandom.current().nextDouble()));
+	}
+
+}
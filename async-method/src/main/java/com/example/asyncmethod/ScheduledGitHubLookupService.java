@@ -0,0 +1,58 @@
+package com.example.asyncmethod;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Looks users up like the @Async GitHubLookupService, including its artificial
+ * delay, but without holding a thread while waiting. Each lookup sends
+ * non-blocking requests that are hedged and retried, each of them after
+ * waiting for a permit of the rate limiter, and then waits for the delay, all
+ * on timers of the LookupScheduler. The number of concurrent lookups is
+ * therefore not limited by the task executor's threads.
+ * 
+ * 与@Async的GitHubLookupService一样查询用户（包括其人为延迟），但等待时不占用线程。
+ * 每次查询发送经过对冲和重试的非阻塞请求，每个请求都先等待限流器的许可，然后等待延迟，全部由LookupScheduler的定时器驱动。
+ * 因此并发查询数不受任务执行器线程数的限制。
+ */
+@Service
+public class ScheduledGitHubLookupService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ScheduledGitHubLookupService.class);
+
+	private final ReactiveGitHubLookupService client;
+
+	private final UserResponseCache userCache;
+
+	private final LookupScheduler scheduler;
+
+	private final LookupProperties properties;
+
+	public ScheduledGitHubLookupService(ReactiveGitHubLookupService client, UserResponseCache userCache,
+			LookupScheduler scheduler, LookupProperties properties) {
+		this.client = client;
+		this.userCache = userCache;
+		this.scheduler = scheduler;
+		this.properties = properties;
+	}
+
+	/**
+	 * Looks up a user, completing with null if there is no such user.
+	 * Concurrent lookups of the same user share one lookup.
+	 * 
+	 * 查询一个用户，如果没有该用户则结果为null。同一用户的并发查询共享一次查询。
+	 */
+	public CompletableFuture<User> findUser(String user) {
+		return userCache.deduplicate(user, () -> {
+			logger.info("Looking up " + user);
+			// every attempt acquires a permit, the hedge acquires one for its second request
+			return scheduler.retry(() -> scheduler.acquire()
+					.thenCompose(permit -> scheduler.hedge(() -> client.attempt(user).toFuture())))
+					.thenCompose(result -> scheduler.delay(properties.getDelay()).thenApply(delayed -> result));
+		});
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.example.asyncmethod;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Actuator endpoint showing the state of the taskExecutor: its sizes, its
+ * task counts and its queue wait and execution times, so that a saturated
+ * executor can be seen over JMX.
+ * 
+ * 显示taskExecutor状态的Actuator端点：包括其大小、任务计数以及排队等待和执行时间，
+ * 以便通过JMX观察饱和的执行器。
+ */
+@Component
+@Endpoint(id = "taskexecutor")
+public class TaskExecutorEndpoint {
+
+	private final InstrumentedTaskExecutor executor;
+
+	public TaskExecutorEndpoint(InstrumentedTaskExecutor executor) {
+		this.executor = executor;
+	}
+
+	@ReadOperation
+	public Map<String, Object> taskExecutor() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("name", executor.getName());
+		result.put("mode", executor.getMode());
+		if (executor.getDelegate() instanceof ThreadPoolTaskExecutor) {
+			ThreadPoolTaskExecutor pool = (ThreadPoolTaskExecutor) executor.getDelegate();
+			result.put("corePoolSize", pool.getCorePoolSize());
+			result.put("maxPoolSize", pool.getMaxPoolSize());
+			result.put("poolSize", pool.getPoolSize());
+		} else if (executor.getDelegate() instanceof VirtualThreadTaskExecutor) {
+			result.put("maxConcurrency", ((VirtualThreadTaskExecutor) executor.getDelegate()).getMaxConcurrency());
+		}
+		result.put("adaptive", executor.isAdaptive());
+		result.put("queueCapacity", executor.getQueueCapacity());
+		result.put("queued", executor.getQueuedCount());
+		result.put("active", executor.getActiveCount());
+		result.put("completed", executor.getCompletedCount());
+		result.put("rejected", executor.getRejectedCount());
+		result.put("queueWait", describe(executor.getQueueWait()));
+		result.put("execution", describe(executor.getExecution()));
+		return result;
+	}
+
+	private static Map<String, Object> describe(Timer timer) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		HistogramSnapshot snapshot = timer.takeSnapshot();
+		result.put("count", snapshot.count());
+		result.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+		result.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+		for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+			result.put("p" + Math.round(percentile.percentile() * 100) + "Ms",
+					percentile.value(TimeUnit.MILLISECONDS));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.example.asyncmethod;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the users returned by the GitHub API together with the ETag and
+ * Last-Modified headers of their responses, so that a lookup of a cached user
+ * is a conditional request. GitHub answers it with an empty 304 Not Modified
+ * if the user has not changed, which costs neither the download and parsing
+ * of the JSON nor, for authenticated requests, the rate limit.
+ * 
+ * 缓存GitHub API返回的用户及其响应的ETag和Last-Modified头，使对已缓存用户的查询成为条件请求。
+ * 如果用户没有变化，GitHub会以空的304 Not Modified响应，这样既不需要下载和解析JSON，
+ * 对于经过身份验证的请求也不消耗速率限制。
+ * 
+ * The cache holds at most github.cache-size users and evicts the least
+ * recently used one. Logins are case insensitive, like on GitHub.
+ * {@link #deduplicate(String, Supplier)} lets concurrent lookups of the same
+ * user share one request.
+ * 
+ * 缓存最多保存github.cache-size个用户，并淘汰最近最少使用的用户。与GitHub一样，登录名不区分大小写。
+ * deduplicate方法让同一用户的并发查询共享一个请求。
+ */
+@Component
+public class UserResponseCache {
+
+	private final int maxSize;
+
+	private final Map<String, CachedUser> users;
+
+	private final ConcurrentMap<String, CompletableFuture<User>> inFlight = new ConcurrentHashMap<>();
+
+	public UserResponseCache(GitHubProperties properties) {
+		this.maxSize = properties.getCacheSize();
+		this.users = new LinkedHashMap<String, CachedUser>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+				return size() > maxSize;
+			}
+
+		};
+	}
+
+	/**
+	 * Adds If-None-Match and If-Modified-Since to the request headers if the user
+	 * is cached.
+	 * 
+	 * @return the cached user the request revalidates, to be passed to
+	 *         {@link #update(String, CachedUser, HttpStatus, HttpHeaders, User)}
+	 */
+	public CachedUser addConditions(String login, HttpHeaders headers) {
+		CachedUser cached;
+		synchronized (users) {
+			cached = users.get(key(login));
+		}
+		if (cached != null) {
+			if (cached.etag != null) {
+				headers.setIfNoneMatch(cached.etag);
+			}
+			if (cached.lastModified != null) {
+				headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+			}
+		}
+		return cached;
+	}
+
+	/**
+	 * Returns the user of a response, which is the revalidated user for a 304,
+	 * and caches it with the validators of the response.
+	 */
+	public User update(String login, CachedUser revalidated, HttpStatus status, HttpHeaders headers, User body) {
+		String etag = headers.getETag();
+		String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+		if (status == HttpStatus.NOT_MODIFIED) {
+			if (revalidated == null) {
+				throw new IllegalStateException("Got 304 Not Modified for " + login + " without a cached user");
+			}
+			put(login, new CachedUser(revalidated.user, etag != null ? etag : revalidated.etag,
+					lastModified != null ? lastModified : revalidated.lastModified));
+			return revalidated.user;
+		}
+		if (body != null && (etag != null || lastModified != null)) {
+			put(login, new CachedUser(body, etag, lastModified));
+		} else {
+			evict(login);
+		}
+		return body;
+	}
+
+	public void evict(String login) {
+		synchronized (users) {
+			users.remove(key(login));
+		}
+	}
+
+	/**
+	 * Returns the lookup of the user that is in flight, or starts one with the
+	 * given supplier. The lookup is forgotten once it completes, so later calls
+	 * start a new one.
+	 */
+	public CompletableFuture<User> deduplicate(String login, Supplier<CompletableFuture<User>> lookup) {
+		String key = key(login);
+		CompletableFuture<User> future = new CompletableFuture<>();
+		CompletableFuture<User> running = inFlight.putIfAbsent(key, future);
+		if (running != null) {
+			return running;
+		}
+		try {
+			lookup.get().whenComplete((user, failure) -> {
+				inFlight.remove(key, future);
+				if (failure != null) {
+					future.completeExceptionally(failure);
+				} else {
+					future.complete(user);
+				}
+			});
+		} catch (RuntimeException e) {
+			inFlight.remove(key, future);
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	private void put(String login, CachedUser user) {
+		if (maxSize > 0) {
+			synchronized (users) {
+				users.put(key(login), user);
+			}
+		}
+	}
+
+	private static String key(String login) {
+		return login.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * A cached user with the validators of the response it came from.
+	 */
+	public static final class CachedUser {
+
+		private final User user;
+
+		private final String etag;
+
+		private final String lastModified;
+
+		CachedUser(User user, String etag, String lastModified) {
+			this.user = user;
+			this.etag = etag;
+			this.lastModified = lastModified;
+		}
+
+		public User getUser() {
+			return user;
+		}
+
+	}
+
+}
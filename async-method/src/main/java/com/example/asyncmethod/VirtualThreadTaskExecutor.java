@@ -0,0 +1,186 @@
+package com.example.asyncmethod;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Runs every task on a new virtual thread, and limits how many tasks run at
+ * the same time with a semaphore instead of a pool size. A task that blocks on
+ * I/O or sleeps then only holds a permit, not a platform thread, so the number
+ * of concurrent lookups is set by maxConcurrency alone.
+ * 
+ * 每个任务都在新的虚拟线程上运行，并用信号量而不是线程池大小来限制同时运行的任务数。
+ * 阻塞于I/O或休眠的任务只占用一个许可，而不占用平台线程，因此并发查询数仅由maxConcurrency决定。
+ * 
+ * Virtual threads are created through reflection, since the application is
+ * built for Java 8. On a JVM without them (before Java 21) the tasks run on a
+ * pool of maxConcurrency platform threads instead.
+ * 
+ * 由于应用程序面向Java 8构建，虚拟线程通过反射创建。在没有虚拟线程的JVM上（Java 21之前），
+ * 任务改为在maxConcurrency个平台线程组成的线程池上运行。
+ * 
+ * At most queueCapacity tasks may wait for a permit, further tasks are
+ * rejected with a TaskRejectedException. The executor only counts the tasks
+ * it needs to enforce its limits, InstrumentedTaskExecutor measures it.
+ */
+public class VirtualThreadTaskExecutor implements TaskExecutor, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadTaskExecutor.class);
+
+	private final Executor launcher;
+
+	private final ExecutorService pool;
+
+	private final int maxConcurrency;
+
+	private final Semaphore permits;
+
+	private final int queueCapacity;
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final AtomicInteger active = new AtomicInteger();
+
+	/**
+	 * @param threadNamePrefix the prefix of the names of the threads
+	 * @param maxConcurrency   the maximum number of tasks running at a time
+	 * @param queueCapacity    the maximum number of tasks waiting to run
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix, int maxConcurrency, int queueCapacity) {
+		this(virtualThreadFactory(threadNamePrefix), threadNamePrefix, maxConcurrency, queueCapacity);
+	}
+
+	/**
+	 * Starts every task on a new thread of threadFactory, as it does on virtual
+	 * threads, so that the permits are what limits the running tasks.
+	 */
+	VirtualThreadTaskExecutor(ThreadFactory threadFactory, int maxConcurrency, int queueCapacity) {
+		this(threadFactory, null, maxConcurrency, queueCapacity);
+	}
+
+	private VirtualThreadTaskExecutor(ThreadFactory threadFactory, String threadNamePrefix, int maxConcurrency,
+			int queueCapacity) {
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency);
+		this.queueCapacity = queueCapacity;
+		if (threadFactory != null) {
+			this.pool = null;
+			this.launcher = task -> threadFactory.newThread(task).start();
+		} else {
+			logger.info("Virtual threads are not available, running at most {} tasks on platform threads",
+					maxConcurrency);
+			ThreadPoolExecutor platformThreads = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new CustomizableThreadFactory(threadNamePrefix));
+			platformThreads.allowCoreThreadTimeOut(true);
+			this.pool = platformThreads;
+			this.launcher = platformThreads;
+		}
+	}
+
+	/**
+	 * Whether the tasks run on virtual threads rather than on platform threads.
+	 */
+	public boolean isVirtual() {
+		return pool == null;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * Returns the number of tasks running.
+	 */
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	/**
+	 * Returns the number of tasks waiting to run.
+	 */
+	public int getQueuedCount() {
+		return queued.get();
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		if (queued.incrementAndGet() > queueCapacity) {
+			queued.decrementAndGet();
+			throw new TaskRejectedException("Executor has " + queueCapacity + " tasks waiting, rejected " + task);
+		}
+		try {
+			launcher.execute(() -> run(task));
+		} catch (RejectedExecutionException e) {
+			queued.decrementAndGet();
+			throw new TaskRejectedException("Executor did not accept task: " + task, e);
+		}
+	}
+
+	private void run(Runnable task) {
+		boolean permitted = acquirePermit();
+		queued.decrementAndGet();
+		active.incrementAndGet();
+		try {
+			task.run();
+		} finally {
+			active.decrementAndGet();
+			if (permitted) {
+				permits.release();
+			}
+		}
+	}
+
+	/**
+	 * Waits for a permit. A thread interrupted while waiting, which only happens
+	 * when the executor shuts down, gets none but keeps its interrupt status. Its
+	 * task still runs and sees the interrupt, so that it fails rather than being
+	 * dropped while its caller waits for a result that never comes.
+	 */
+	private boolean acquirePermit() {
+		try {
+			permits.acquire();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Override
+	public void destroy() {
+		// virtual threads are daemon threads, only the platform pool needs to stop
+		if (pool != null) {
+			pool.shutdownNow();
+		}
+	}
+
+	// Thread.ofVirtual().name(prefix, 1).factory(), or null before Java 21
+	private static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Method name = builderType.getMethod("name", String.class, long.class);
+			builder = name.invoke(builder, threadNamePrefix, 1L);
+			return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// not there, or a preview feature that is not enabled
+			return null;
+		}
+	}
+
+}
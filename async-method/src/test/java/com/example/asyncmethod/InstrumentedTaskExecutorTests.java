@@ -0,0 +1,142 @@
+package com.example.asyncmethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Calls adjustCorePoolSize directly rather than waiting for the tuner, whose
+ * interval is set to an hour.
+ */
+public class InstrumentedTaskExecutorTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final AsyncExecutorProperties.Adaptive adaptive = new AsyncExecutorProperties.Adaptive();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private ThreadPoolTaskExecutor pool;
+
+	private InstrumentedTaskExecutor executor;
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		release.countDown();
+		if (executor != null) {
+			executor.destroy();
+		}
+	}
+
+	private InstrumentedTaskExecutor executor(int poolSize, int queueCapacity) {
+		pool = new ThreadPoolTaskExecutor();
+		pool.setCorePoolSize(poolSize);
+		pool.setMaxPoolSize(poolSize);
+		pool.setQueueCapacity(queueCapacity);
+		pool.setThreadNamePrefix("test-");
+		pool.initialize();
+		executor = new InstrumentedTaskExecutor("test", pool, queueCapacity, registry, adaptive);
+		return executor;
+	}
+
+	private Runnable blocking() {
+		return () -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(condition.getAsBoolean()).isTrue();
+	}
+
+	@Test
+	public void growsByHalfUpToTheMaximumAndShrinksBackOnceTheQueueDrains() throws InterruptedException {
+		adaptive.setEnabled(true);
+		adaptive.setTargetQueueWait(Duration.ofMillis(20));
+		adaptive.setInterval(Duration.ofHours(1));
+		adaptive.setMaxCorePoolSize(5);
+		InstrumentedTaskExecutor executor = executor(2, 10);
+		assertThat(executor.isAdaptive()).isTrue();
+		for (int i = 0; i < 6; i++) {
+			executor.execute(blocking());
+		}
+		await(() -> executor.getActiveCount() == 2);
+		Thread.sleep(40);
+
+		// the oldest queued task waits past the target, and every new core thread takes one off the queue
+		executor.adjustCorePoolSize();
+		assertThat(pool.getCorePoolSize()).isEqualTo(3);
+		await(() -> executor.getActiveCount() == 3);
+		executor.adjustCorePoolSize();
+		assertThat(pool.getCorePoolSize()).isEqualTo(4);
+		await(() -> executor.getActiveCount() == 4);
+		// 4 would grow by 2, past the maximum
+		executor.adjustCorePoolSize();
+		assertThat(pool.getCorePoolSize()).isEqualTo(5);
+		assertThat(pool.getMaxPoolSize()).isEqualTo(5);
+		await(() -> executor.getActiveCount() == 5);
+		assertThat(executor.getQueuedCount()).isEqualTo(1);
+		executor.adjustCorePoolSize();
+		assertThat(pool.getCorePoolSize()).isEqualTo(5);
+
+		release.countDown();
+		await(() -> executor.getCompletedCount() == 6);
+		// the tasks started in the last interval waited long, so it only shrinks from the next one on
+		executor.adjustCorePoolSize();
+		assertThat(pool.getCorePoolSize()).isEqualTo(5);
+		for (int core = 4; core >= 2; core--) {
+			executor.adjustCorePoolSize();
+			assertThat(pool.getCorePoolSize()).isEqualTo(core);
+		}
+		executor.adjustCorePoolSize();
+		assertThat(pool.getCorePoolSize()).isEqualTo(2);
+		assertThat(pool.getMaxPoolSize()).isEqualTo(2);
+	}
+
+	@Test
+	public void countsTheTasksOfASaturatedPool() throws InterruptedException {
+		InstrumentedTaskExecutor executor = executor(1, 2);
+		assertThat(executor.isAdaptive()).isFalse();
+		executor.execute(blocking());
+		await(() -> executor.getActiveCount() == 1);
+		executor.execute(blocking());
+		executor.execute(blocking());
+		assertThatThrownBy(() -> executor.execute(blocking())).isInstanceOf(TaskRejectedException.class);
+		assertThat(executor.getQueuedCount()).isEqualTo(2);
+		assertThat(executor.getActiveCount()).isEqualTo(1);
+		assertThat(executor.getCompletedCount()).isZero();
+		assertThat(executor.getRejectedCount()).isEqualTo(1);
+		assertThat(registry.get("executor.queued").tag("name", "test").tag("mode", "platform").gauge().value())
+				.isEqualTo(2);
+		assertThat(registry.get("executor.rejected").functionCounter().count()).isEqualTo(1);
+
+		release.countDown();
+		await(() -> executor.getCompletedCount() == 3);
+		assertThat(executor.getQueuedCount()).isZero();
+		assertThat(executor.getActiveCount()).isZero();
+		assertThat(executor.getRejectedCount()).isEqualTo(1);
+		assertThat(registry.get("executor.completed").functionCounter().count()).isEqualTo(3);
+		assertThat(registry.get("executor.queue.wait").timer().count()).isEqualTo(3);
+		assertThat(registry.get("executor.execution").timer().count()).isEqualTo(3);
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.example.asyncmethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LookupSchedulerTests {
+
+	private final LookupProperties properties = new LookupProperties();
+
+	private LookupScheduler scheduler;
+
+	@BeforeEach
+	public void setUp() {
+		properties.setPermitsPerSecond(20);
+		properties.setBurst(3);
+		properties.setInitialHedgeDelay(Duration.ofMillis(50));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (scheduler != null) {
+			scheduler.destroy();
+		}
+	}
+
+	private LookupScheduler scheduler() {
+		scheduler = new LookupScheduler(properties, new GitHubProperties());
+		return scheduler;
+	}
+
+	@Test
+	public void admitsTheBurstAtOnceAndSpacesTheRest() {
+		LookupScheduler scheduler = scheduler();
+		long start = System.nanoTime();
+		List<CompletableFuture<Void>> permits = new ArrayList<>();
+		List<Long> admitted = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			CompletableFuture<Void> permit = scheduler.acquire();
+			permits.add(permit.thenRun(() -> {
+				synchronized (admitted) {
+					admitted.add(System.nanoTime() - start);
+				}
+			}));
+			assertThat(permit.isDone()).isEqualTo(i < 3);
+		}
+		CompletableFuture.allOf(permits.toArray(new CompletableFuture<?>[0])).join();
+		// 20 permits per second are 50ms apart, the 4th and 5th come one and two intervals after the burst
+		assertThat(admitted.get(3)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+		assertThat(admitted.get(4)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(admitted.get(4) - admitted.get(3)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+	}
+
+	@Test
+	public void hedgesASlowAttemptAndCancelsIt() {
+		LookupScheduler scheduler = scheduler();
+		CompletableFuture<String> slow = new CompletableFuture<>();
+		List<CompletableFuture<String>> attempts = new ArrayList<>();
+		CompletableFuture<String> result = scheduler.hedge(() -> {
+			CompletableFuture<String> attempt = attempts.isEmpty() ? slow : CompletableFuture.completedFuture("hedged");
+			attempts.add(attempt);
+			return attempt;
+		});
+		assertThat(result.join()).isEqualTo("hedged");
+		assertThat(attempts).hasSize(2);
+		assertThat(scheduler.getHedgeCount()).isEqualTo(1);
+		assertThatThrownBy(slow::join).isInstanceOf(CancellationException.class);
+	}
+
+	@Test
+	public void doesNotHedgeAttemptsThatAnswerInTime() throws InterruptedException {
+		LookupScheduler scheduler = scheduler();
+		List<CompletableFuture<String>> attempts = new ArrayList<>();
+		CompletableFuture<String> result = scheduler.hedge(() -> {
+			CompletableFuture<String> attempt = CompletableFuture.completedFuture("first");
+			attempts.add(attempt);
+			return attempt;
+		});
+		assertThat(result.join()).isEqualTo("first");
+		Thread.sleep(100);
+		assertThat(attempts).hasSize(1);
+		assertThat(scheduler.getHedgeCount()).isZero();
+	}
+
+	@Test
+	public void cancelsTheHedgedAttemptWhenTheFirstAnswers() {
+		LookupScheduler scheduler = scheduler();
+		CompletableFuture<String> first = new CompletableFuture<>();
+		CompletableFuture<String> second = new CompletableFuture<>();
+		List<CompletableFuture<String>> attempts = new ArrayList<>();
+		CompletableFuture<String> result = scheduler.hedge(() -> {
+			CompletableFuture<String> attempt = attempts.isEmpty() ? first : second;
+			synchronized (attempts) {
+				attempts.add(attempt);
+				attempts.notifyAll();
+			}
+			return attempt;
+		});
+		synchronized (attempts) {
+			while (attempts.size() < 2) {
+				try {
+					attempts.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+		first.complete("first");
+		assertThat(result.join()).isEqualTo("first");
+		// cancelled on the timer thread, which may still be sending it
+		assertThatThrownBy(second::join).isInstanceOf(CancellationException.class);
+	}
+
+	@Test
+	public void hedgesWaitForAPermit() {
+		properties.setPermitsPerSecond(2);
+		properties.setBurst(1);
+		LookupScheduler scheduler = scheduler();
+		// takes the only permit, so the hedge waits 500ms for the next one
+		scheduler.acquire().join();
+		CompletableFuture<String> first = new CompletableFuture<>();
+		List<CompletableFuture<String>> attempts = new ArrayList<>();
+		long start = System.nanoTime();
+		CompletableFuture<String> result = scheduler.hedge(() -> {
+			CompletableFuture<String> attempt = attempts.isEmpty() ? first : CompletableFuture.completedFuture("hedged");
+			attempts.add(attempt);
+			return attempt;
+		});
+		assertThat(result.join()).isEqualTo("hedged");
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+	}
+
+}
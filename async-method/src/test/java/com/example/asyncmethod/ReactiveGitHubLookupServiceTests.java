@@ -0,0 +1,94 @@
+package com.example.asyncmethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Looks users up on a local server that answers with the status its name
+ * asks for, to check which failures are retried.
+ */
+public class ReactiveGitHubLookupServiceTests {
+
+	private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+	private HttpServer server;
+
+	private ReactiveGitHubLookupService service;
+
+	@BeforeEach
+	public void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/users/", this::answer);
+		server.start();
+		GitHubProperties properties = new GitHubProperties();
+		properties.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+		properties.setFirstBackoff(Duration.ofMillis(1));
+		properties.setMaxBackoff(Duration.ofMillis(5));
+		service = new ReactiveGitHubLookupService(WebClient.builder(), properties, new UserResponseCache(properties));
+	}
+
+	@AfterEach
+	public void stop() {
+		service.destroy();
+		server.stop(0);
+	}
+
+	// "flaky" answers 503 twice, a user named after a status always answers it
+	private void answer(HttpExchange exchange) throws IOException {
+		String user = exchange.getRequestURI().getPath().substring("/users/".length());
+		int count = requests.computeIfAbsent(user, key -> new AtomicInteger()).incrementAndGet();
+		int status = user.equals("flaky") ? (count <= 2 ? 503 : 200)
+				: user.matches("\\d+") ? Integer.parseInt(user) : 200;
+		byte[] body = ("{\"name\":\"" + user + "\"}").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	@Test
+	public void retriesServerErrors() {
+		assertThat(service.findUser("flaky").block().getName()).isEqualTo("flaky");
+		assertThat(requests.get("flaky")).hasValue(3);
+	}
+
+	@Test
+	public void givesUpAfterTheRetries() {
+		assertThatThrownBy(() -> service.findUser("503").block()).isInstanceOf(WebClientResponseException.class);
+		assertThat(requests.get("503")).hasValue(4);
+	}
+
+	@Test
+	public void doesNotRetryRateLimitAnswers() {
+		assertThatThrownBy(() -> service.findUser("403").block()).isInstanceOf(WebClientResponseException.class);
+		assertThatThrownBy(() -> service.findUser("429").block()).isInstanceOf(WebClientResponseException.class);
+		assertThat(requests.get("403")).hasValue(1);
+		assertThat(requests.get("429")).hasValue(1);
+	}
+
+	@Test
+	public void completesEmptyForMissingUsers() {
+		assertThat(service.findUser("404").blockOptional()).isEmpty();
+		assertThat(requests.get("404")).hasValue(1);
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.example.asyncmethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import com.example.asyncmethod.UserResponseCache.CachedUser;
+
+public class UserResponseCacheTests {
+
+	private final GitHubProperties properties = new GitHubProperties();
+
+	@Test
+	public void evictsTheLeastRecentlyUsedUser() {
+		properties.setCacheSize(2);
+		UserResponseCache cache = new UserResponseCache(properties);
+		cache.update("a", null, HttpStatus.OK, etag("\"a\""), user("a"));
+		cache.update("b", null, HttpStatus.OK, etag("\"b\""), user("b"));
+		// using a makes b the least recently used
+		cache.addConditions("a", new HttpHeaders());
+		cache.update("c", null, HttpStatus.OK, etag("\"c\""), user("c"));
+
+		assertThat(cache.addConditions("a", new HttpHeaders())).isNotNull();
+		assertThat(cache.addConditions("b", new HttpHeaders())).isNull();
+		assertThat(cache.addConditions("c", new HttpHeaders())).isNotNull();
+	}
+
+	@Test
+	public void revalidatesCachedUsers() {
+		UserResponseCache cache = new UserResponseCache(properties);
+		HttpHeaders response = etag("\"1\"");
+		response.set(HttpHeaders.LAST_MODIFIED, "Wed, 21 Oct 2015 07:28:00 GMT");
+		User user = user("octocat");
+		cache.update("octocat", null, HttpStatus.OK, response, user);
+
+		HttpHeaders request = new HttpHeaders();
+		CachedUser cached = cache.addConditions("OctoCat", request);
+		assertThat(cached.getUser()).isSameAs(user);
+		assertThat(request.getIfNoneMatch()).containsExactly("\"1\"");
+		assertThat(request.getFirst(HttpHeaders.IF_MODIFIED_SINCE)).isEqualTo("Wed, 21 Oct 2015 07:28:00 GMT");
+
+		assertThat(cache.update("octocat", cached, HttpStatus.NOT_MODIFIED, new HttpHeaders(), null)).isSameAs(user);
+		// a 304 without validators keeps those of the cached response
+		request = new HttpHeaders();
+		cache.addConditions("octocat", request);
+		assertThat(request.getIfNoneMatch()).containsExactly("\"1\"");
+	}
+
+	@Test
+	public void rejectsNotModifiedWithoutCachedUser() {
+		UserResponseCache cache = new UserResponseCache(properties);
+		assertThatThrownBy(() -> cache.update("octocat", null, HttpStatus.NOT_MODIFIED, new HttpHeaders(), null))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void doesNotCacheUsersWithoutValidators() {
+		UserResponseCache cache = new UserResponseCache(properties);
+		cache.update("octocat", null, HttpStatus.OK, etag("\"1\""), user("octocat"));
+		cache.update("octocat", null, HttpStatus.OK, new HttpHeaders(), user("octocat"));
+		assertThat(cache.addConditions("octocat", new HttpHeaders())).isNull();
+	}
+
+	@Test
+	public void deduplicatesConcurrentLookups() {
+		UserResponseCache cache = new UserResponseCache(properties);
+		AtomicInteger lookups = new AtomicInteger();
+		CompletableFuture<User> response = new CompletableFuture<>();
+		CompletableFuture<User> first = cache.deduplicate("octocat", () -> {
+			lookups.incrementAndGet();
+			return response;
+		});
+		CompletableFuture<User> second = cache.deduplicate("OctoCat", () -> {
+			lookups.incrementAndGet();
+			return new CompletableFuture<>();
+		});
+		assertThat(second).isSameAs(first);
+		response.complete(user("octocat"));
+		assertThat(first.join().getName()).isEqualTo("octocat");
+		assertThat(lookups).hasValue(1);
+
+		// a completed lookup is not shared with later ones
+		cache.deduplicate("octocat", () -> {
+			lookups.incrementAndGet();
+			return CompletableFuture.completedFuture(user("octocat"));
+		}).join();
+		assertThat(lookups).hasValue(2);
+	}
+
+	private static HttpHeaders etag(String etag) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag(etag);
+		return headers;
+	}
+
+	private static User user(String name) {
+		User user = new User();
+		user.setName(name);
+		return user;
+	}
+
+}
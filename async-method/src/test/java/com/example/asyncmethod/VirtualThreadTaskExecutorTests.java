@@ -0,0 +1,133 @@
+package com.example.asyncmethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Runs the executor on a new platform thread per task, as it runs on virtual
+ * threads, so that the permits limit the running tasks on any JVM.
+ */
+public class VirtualThreadTaskExecutorTests {
+
+	private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private final AtomicInteger maxRunning = new AtomicInteger();
+
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		release.countDown();
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(10));
+		}
+	}
+
+	private VirtualThreadTaskExecutor executor(int maxConcurrency, int queueCapacity) {
+		return new VirtualThreadTaskExecutor(task -> {
+			Thread thread = new Thread(task);
+			threads.add(thread);
+			return thread;
+		}, maxConcurrency, queueCapacity);
+	}
+
+	private Runnable blocking(CountDownLatch release) {
+		return () -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				running.decrementAndGet();
+			}
+		};
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(condition.getAsBoolean()).isTrue();
+	}
+
+	private void joinAll() throws InterruptedException {
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(10));
+			assertThat(thread.isAlive()).isFalse();
+		}
+	}
+
+	@Test
+	public void runsAtMostMaxConcurrencyTasksAndRejectsTheOverflow() throws InterruptedException {
+		VirtualThreadTaskExecutor executor = executor(2, 3);
+		assertThat(executor.isVirtual()).isTrue();
+		executor.execute(blocking(release));
+		executor.execute(blocking(release));
+		await(() -> executor.getActiveCount() == 2);
+		for (int i = 0; i < 3; i++) {
+			executor.execute(blocking(release));
+		}
+		// every task gets a thread, the last three wait for a permit on theirs
+		await(() -> threads.size() == 5 && threads.stream().skip(2)
+				.allMatch(thread -> thread.getState() == Thread.State.WAITING));
+		assertThat(executor.getActiveCount()).isEqualTo(2);
+		assertThat(executor.getQueuedCount()).isEqualTo(3);
+		assertThatThrownBy(() -> executor.execute(blocking(release))).isInstanceOf(TaskRejectedException.class)
+				.hasMessageContaining("3 tasks waiting");
+		assertThat(threads).hasSize(5);
+		assertThat(executor.getQueuedCount()).isEqualTo(3);
+
+		release.countDown();
+		joinAll();
+		assertThat(maxRunning).hasValue(2);
+		assertThat(executor.getActiveCount()).isZero();
+		assertThat(executor.getQueuedCount()).isZero();
+	}
+
+	@Test
+	public void runsATaskInterruptedWhileWaitingWithoutTakingAPermit() throws InterruptedException {
+		VirtualThreadTaskExecutor executor = executor(1, 1);
+		executor.execute(blocking(release));
+		await(() -> executor.getActiveCount() == 1);
+		AtomicBoolean interrupted = new AtomicBoolean();
+		executor.execute(() -> interrupted.set(Thread.currentThread().isInterrupted()));
+		await(() -> threads.size() == 2 && threads.get(1).getState() == Thread.State.WAITING);
+		threads.get(1).interrupt();
+		threads.get(1).join(TimeUnit.SECONDS.toMillis(10));
+		// the task ran, and saw the interrupt, while the first still held the only permit
+		assertThat(interrupted).isTrue();
+		assertThat(executor.getActiveCount()).isEqualTo(1);
+		assertThat(executor.getQueuedCount()).isZero();
+
+		release.countDown();
+		joinAll();
+		// the interrupted task did not release a permit it never got, so one task still runs at a time
+		CountDownLatch next = new CountDownLatch(1);
+		executor.execute(blocking(next));
+		await(() -> executor.getActiveCount() == 1);
+		executor.execute(blocking(next));
+		await(() -> threads.size() == 4 && threads.get(3).getState() == Thread.State.WAITING);
+		assertThat(executor.getActiveCount()).isEqualTo(1);
+		assertThat(executor.getQueuedCount()).isEqualTo(1);
+		next.countDown();
+		joinAll();
+		assertThat(maxRunning).hasValue(1);
+	}
+
+}
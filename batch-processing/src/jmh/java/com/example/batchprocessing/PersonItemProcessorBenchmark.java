@@ -0,0 +1,88 @@
+package com.example.batchprocessing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+
+/**
+ * Measures the per-item cost of the PersonItemProcessor against the original
+ * implementation, which built a new Person and concatenated a log message for
+ * every item. Run with {@code -prof gc} for the allocation rate.
+ *
+ * Logging is enabled at INFO but has no appenders, so the benchmark measures
+ * what the processor does per item rather than console output.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersonItemProcessorBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(PersonItemProcessorBenchmark.class);
+
+	private static final String[] FIRST_NAMES = { "Jill", "Joe", "Justin", "Jane", "John" };
+
+	private int index;
+
+	@State(Scope.Thread)
+	public static class Pipeline {
+
+		@Param({ "1", "1000" })
+		public int logSampleRate;
+
+		private PersonItemProcessor processor;
+
+		@Setup
+		public void createProcessor() {
+			processor = new PersonItemProcessor(
+					PersonTransform.trim().andThen(PersonTransform.upperCase()).andThen(PersonTransform.validNames(20)),
+					logSampleRate);
+		}
+
+	}
+
+	@Setup
+	public void silenceLogging() {
+		ch.qos.logback.classic.Logger root = (ch.qos.logback.classic.Logger) LoggerFactory
+				.getLogger(Logger.ROOT_LOGGER_NAME);
+		root.detachAndStopAllAppenders();
+		root.setLevel(Level.INFO);
+	}
+
+	@Benchmark
+	public Person concatenatingProcessor() {
+		Person person = nextPerson();
+		final Person transformedPerson = new Person(person.getFirstName().toUpperCase(),
+				person.getLastName().toUpperCase());
+		log.info("Converting (" + person + ") into (" + transformedPerson + ")");
+		return transformedPerson;
+	}
+
+	@Benchmark
+	public Person pipelineProcessor(Pipeline pipeline) throws Exception {
+		return pipeline.processor.process(nextPerson());
+	}
+
+	// both benchmarks get a fresh, mixed case item like the reader would produce
+	private Person nextPerson() {
+		index = (index + 1) % FIRST_NAMES.length;
+		return new Person(FIRST_NAMES[index], "Doe");
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.example.batchprocessing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Compares the FlatFileItemReader setup of BatchConfiguration with the
+ * MappedPersonItemReader. Each operation reads the whole generated file. Run
+ * with {@code -prof gc} to compare allocation rates as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersonReaderBenchmark {
+
+	@Param({ "100000" })
+	public int lines;
+
+	private Path file;
+
+	private Resource resource;
+
+	@Setup
+	public void createFile() throws IOException {
+		file = Files.createTempFile("people", ".csv");
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < lines; i++) {
+				writer.write("First" + i + ",Last" + i);
+				writer.newLine();
+			}
+		}
+		resource = new FileSystemResource(file.toFile());
+	}
+
+	@TearDown
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public void flatFileItemReader(Blackhole blackhole) throws Exception {
+		readAll(new FlatFileItemReaderBuilder<Person>().name("personItemReader").resource(resource).delimited()
+				.names(new String[] { "firstName", "lastName" })
+				.fieldSetMapper(new BeanWrapperFieldSetMapper<Person>() {
+					{
+						setTargetType(Person.class);
+					}
+				}).build(), blackhole);
+	}
+
+	@Benchmark
+	public void mappedPersonItemReader(Blackhole blackhole) throws Exception {
+		readAll(new MappedPersonItemReader(resource), blackhole);
+	}
+
+	private void readAll(ItemStreamReader<Person> reader, Blackhole blackhole) throws Exception {
+		reader.open(new ExecutionContext());
+		try {
+			Person person;
+			while ((person = reader.read()) != null) {
+				blackhole.consume(person);
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+}
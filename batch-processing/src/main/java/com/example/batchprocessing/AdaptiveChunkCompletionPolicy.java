@@ -0,0 +1,161 @@
+package com.example.batchprocessing;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A completion policy that adjusts the chunk size of a step between chunks so
+ * that writing a chunk takes about the target latency. Only the call of the
+ * writer is timed, the commit of the chunk is not.
+ *
+ * After every committed chunk the per-item write time is measured and the size
+ * moves half way towards the size that would have met the target, growing at
+ * most twofold per chunk. A rollback halves the size, and while the smoothed
+ * rollback rate is above 10% the size does not grow. The size always stays
+ * within the configured bounds.
+ *
+ * The current size is published as the {@code import.chunk.size} gauge and
+ * every chosen size is recorded in the {@code import.chunk.size.chosen}
+ * summary, both tagged with the step name. The policy keeps per step state, so
+ * each step (and each partition) needs an instance of its own. Register it as
+ * a listener of the step as well.
+ */
+public class AdaptiveChunkCompletionPolicy extends SimpleCompletionPolicy
+		implements ChunkListener, ItemWriteListener<Person>, StepExecutionListener {
+
+	private static final Logger log = LoggerFactory.getLogger(AdaptiveChunkCompletionPolicy.class);
+
+	private static final double ROLLBACK_RATE_LIMIT = 0.1;
+
+	private final int minSize;
+
+	private final int maxSize;
+
+	private final long targetNanos;
+
+	private final MeterRegistry registry;
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private double rollbackRate;
+
+	private long writeStart;
+
+	private long writeNanos;
+
+	private int written;
+
+	private Gauge sizeGauge;
+
+	private DistributionSummary chosenSizes;
+
+	/**
+	 * @param initialSize   chunk size of the first chunk
+	 * @param minSize       lower bound of the chunk size
+	 * @param maxSize       upper bound of the chunk size
+	 * @param targetLatency time the writer should take to write a chunk
+	 * @param registry      the registry of the chunk size meters
+	 */
+	public AdaptiveChunkCompletionPolicy(int initialSize, int minSize, int maxSize, Duration targetLatency,
+			MeterRegistry registry) {
+		Assert.isTrue(minSize > 0 && minSize <= maxSize, "minSize must be positive and not above maxSize");
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.targetNanos = targetLatency.toNanos();
+		this.registry = registry;
+		resize(initialSize);
+	}
+
+	public int getChunkSize() {
+		return size.get();
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		String step = stepExecution.getStepName();
+		sizeGauge = Gauge.builder("import.chunk.size", size, AtomicInteger::get).tag("step", step)
+				.description("Current chunk size of the step").register(registry);
+		chosenSizes = DistributionSummary.builder("import.chunk.size.chosen").tag("step", step)
+				.description("Chunk sizes chosen by the adaptive completion policy").register(registry);
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		registry.remove(sizeGauge);
+		return null;
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+		writeNanos = 0;
+		written = 0;
+	}
+
+	@Override
+	public void beforeWrite(List<? extends Person> items) {
+		writeStart = System.nanoTime();
+	}
+
+	@Override
+	public void afterWrite(List<? extends Person> items) {
+		writeNanos += System.nanoTime() - writeStart;
+		written += items.size();
+	}
+
+	@Override
+	public void onWriteError(Exception exception, List<? extends Person> items) {
+		writeNanos += System.nanoTime() - writeStart;
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		rollbackRate *= 0.9;
+		if (written == 0 || writeNanos == 0) {
+			return;
+		}
+		double nanosPerItem = (double) writeNanos / written;
+		int current = size.get();
+		long ideal = Math.round(targetNanos / nanosPerItem);
+		long next = (current + ideal) / 2;
+		if (next > current) {
+			next = rollbackRate > ROLLBACK_RATE_LIMIT ? current : Math.min(next, 2L * current);
+		}
+		resize(next);
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext context) {
+		rollbackRate = rollbackRate * 0.9 + 0.1;
+		resize(size.get() / 2);
+	}
+
+	private void resize(long requested) {
+		int next = (int) Math.max(minSize, Math.min(maxSize, requested));
+		int previous = size.getAndSet(next);
+		setChunkSize(next);
+		if (chosenSizes != null) {
+			chosenSizes.record(next);
+		}
+		if (previous != next) {
+			log.debug("Chunk size changed from {} to {}", previous, next);
+		}
+	}
+
+}
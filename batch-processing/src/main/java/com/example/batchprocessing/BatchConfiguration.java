@@ -1,14 +1,34 @@
 package com.example.batchprocessing;
 
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
 import javax.sql.DataSource;
 
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
 // import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.builder.JobFlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
@@ -17,11 +37,29 @@ import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
 import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
 // import org.springframework.batch.item.file.mapping.DefaultLineMapper;
 // import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BasicBatchConfigurer;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.core.task.TaskExecutor;
 // import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.example.batchprocessing.ImportProperties.Chunk;
+import com.example.batchprocessing.ImportProperties.Mode;
+import com.example.batchprocessing.ImportProperties.Processor;
+import com.example.batchprocessing.ImportProperties.Reader;
+import com.example.batchprocessing.ImportProperties.Writer;
+import com.example.batchprocessing.ImportProperties.WriterMode;
 
 // tag::setup[]
 @Configuration
@@ -35,6 +73,15 @@ public class BatchConfiguration {
 	public StepBuilderFactory stepBuilderFactory;
 	// end::setup[]
 
+	@Autowired
+	public ImportProperties importProperties;
+
+	@Autowired
+	public ResourceLoader resourceLoader;
+
+	@Autowired
+	public MeterRegistry meterRegistry;
+
 	// tag::readerwriterprocessor[]
 	/**
 	 * Creates an ItemReader. It looks for a file called sample-data.csv and parses
@@ -44,8 +91,7 @@ public class BatchConfiguration {
 	 */
 	@Bean
 	public FlatFileItemReader<Person> reader() {
-		return new FlatFileItemReaderBuilder<Person>().name("personItemReader")
-				.resource(new ClassPathResource("sample-data.csv")).delimited()
+		return new FlatFileItemReaderBuilder<Person>().name("personItemReader").resource(input()).delimited()
 				.names(new String[] { "firstName", "lastName" })
 				.fieldSetMapper(new BeanWrapperFieldSetMapper<Person>() {
 					{
@@ -55,13 +101,33 @@ public class BatchConfiguration {
 	}
 
 	/**
-	 * Creates an instance of the PersonItemProcessor.
+	 * Creates a reader that parses the same file through a memory mapped
+	 * FileChannel, without FieldSets or reflection.
+	 * 
+	 * @return
+	 */
+	@Bean
+	public MappedPersonItemReader mappedReader() {
+		return new MappedPersonItemReader(input());
+	}
+
+	/**
+	 * Creates an instance of the PersonItemProcessor. Besides upper-casing, it can
+	 * trim and validate the names, and it logs a sample of the items it converts.
 	 * 
 	 * @return
 	 */
 	@Bean
 	public PersonItemProcessor processor() {
-		return new PersonItemProcessor();
+		Processor processor = importProperties.getProcessor();
+		PersonTransform transform = PersonTransform.upperCase();
+		if (processor.isTrim()) {
+			transform = PersonTransform.trim().andThen(transform);
+		}
+		if (processor.isValidate()) {
+			transform = transform.andThen(PersonTransform.validNames(processor.getMaxNameLength()));
+		}
+		return new PersonItemProcessor(transform, processor.getLogSampleRate());
 	}
 
 	/**
@@ -70,15 +136,50 @@ public class BatchConfiguration {
 	 * by @EnableBatchProcessing. It includes the SQL statement needed to insert a
 	 * single Person, driven by Java bean properties.
 	 * 
+	 * The writer is step scoped, so every worker step of the partitioned import
+	 * gets a writer of its own. import.writer.mode DIRECT binds the fields
+	 * directly and UPSERT skips people already in the table, see
+	 * {@link #bulkWriter(DataSource)} for the other modes.
+	 * 
 	 * @param dataSource
 	 * @return
 	 */
 	@Bean
+	@StepScope
 	public JdbcBatchItemWriter<Person> writer(DataSource dataSource) {
-		return new JdbcBatchItemWriterBuilder<Person>()
-				.itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
-				.sql("INSERT INTO people (first_name, last_name) VALUES (:firstName, :lastName)").dataSource(dataSource)
-				.build();
+		switch (importProperties.getWriter().getMode()) {
+		case DIRECT:
+			return new JdbcBatchItemWriterBuilder<Person>()
+					.itemPreparedStatementSetter(new PersonPreparedStatementSetter())
+					.sql("INSERT INTO people (first_name, last_name) VALUES (?, ?)").dataSource(dataSource).build();
+		case UPSERT:
+			// a person already in the table updates no row
+			return new JdbcBatchItemWriterBuilder<Person>()
+					.itemPreparedStatementSetter(new PersonPreparedStatementSetter())
+					.sql(PersonUpsertStatements.upsertSql(dataSource)).assertUpdates(false).dataSource(dataSource)
+					.build();
+		default:
+			return new JdbcBatchItemWriterBuilder<Person>()
+					.itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
+					.sql("INSERT INTO people (first_name, last_name) VALUES (:firstName, :lastName)")
+					.dataSource(dataSource).build();
+		}
+	}
+
+	/**
+	 * Creates the writer of import.writer.mode MULTI_ROW and STAGED, which insert
+	 * many rows per statement, STAGED into a staging table first. It is a bean of
+	 * its own so that each step scoped writer is declared with its concrete type.
+	 * 
+	 * @param dataSource
+	 * @return
+	 */
+	@Bean
+	@StepScope
+	public PersonBulkItemWriter bulkWriter(DataSource dataSource) {
+		Writer writer = importProperties.getWriter();
+		return new PersonBulkItemWriter(dataSource, writer.getRowsPerStatement(),
+				writer.getMode() == WriterMode.STAGED ? "people_stage" : null);
 	}
 	// end::readerwriterprocessor[]
 
@@ -91,14 +192,29 @@ public class BatchConfiguration {
 	 * only one step). The job ends, and the Java API produces a perfectly
 	 * configured job.
 	 * 
+	 * import.mode picks the step: step1, the partitionedStep or, for MULTI_FILE,
+	 * a split flow with one step per input file.
+	 * 
 	 * @param listener
 	 * @param step1
 	 * @return
 	 */
 	@Bean
-	public Job importUserJob(JobCompletionNotificationListener listener, Step step1) {
-		return jobBuilderFactory.get("importUserJob").incrementer(new RunIdIncrementer()).listener(listener).flow(step1)
-				.end().build();
+	public Job importUserJob(JobCompletionNotificationListener listener, Step step1, Step partitionedStep) {
+		JobBuilder job = jobBuilderFactory.get("importUserJob").incrementer(new RunIdIncrementer())
+				.listener(listener);
+		JobFlowBuilder flow;
+		switch (importProperties.getMode()) {
+		case PARTITIONED:
+			flow = job.flow(partitionedStep);
+			break;
+		case MULTI_FILE:
+			flow = job.start(multiFileFlow());
+			break;
+		default:
+			flow = job.flow(step1);
+		}
+		return flow.end().build();
 	}
 
 	/**
@@ -106,20 +222,269 @@ public class BatchConfiguration {
 	 * writer.
 	 * 
 	 * Define how much data to write at a time. In this case, it writes up to ten
-	 * records at a time. Next, you configure the reader, processor, and writer by
-	 * using the beans injected earlier.
+	 * records at a time (see chunk(String)). Next, you configure the reader,
+	 * processor, and writer by using the beans injected earlier.
 	 * 
 	 * chunk() is prefixed <Person,Person> because it is a generic method. This
 	 * represents the input and output types of each “chunk” of processing and lines
 	 * up with ItemReader<Person> and ItemWriter<Person>.
 	 * 
-	 * @param writer
 	 * @return
 	 */
 	@Bean
-	public Step step1(JdbcBatchItemWriter<Person> writer) {
-		return stepBuilderFactory.get("step1").<Person, Person>chunk(10).reader(reader()).processor(processor())
-				.writer(writer).build();
+	public Step step1() {
+		ItemStreamReader<Person> reader = importProperties.getReader() == Reader.MAPPED ? mappedReader() : reader();
+		return chunk("step1").reader(reader).processor(stepProcessor()).writer(stepWriter()).build();
 	}
 	// end::jobstep[]
+
+	/**
+	 * The manager step of the partitioned import. It splits the input into
+	 * import.partition.grid-size line ranges (byte ranges for the mapped reader)
+	 * and runs a workerStep for each of them on the partition TaskExecutor. Every
+	 * worker keeps its own execution context, so a restart only re-runs the
+	 * partitions that did not complete.
+	 * 
+	 * @param workerStep
+	 * @return
+	 */
+	@Bean
+	public Step partitionedStep(Step workerStep) {
+		Partitioner partitioner = importProperties.getReader() == Reader.MAPPED ? new ByteRangePartitioner(input())
+				: new LineRangePartitioner(input());
+		return stepBuilderFactory.get("partitionedStep").partitioner("workerStep", partitioner).step(workerStep)
+				.gridSize(importProperties.getPartition().getGridSize()).taskExecutor(partitionTaskExecutor())
+				.build();
+	}
+
+	/**
+	 * Imports the line range of a single partition.
+	 * 
+	 * @return
+	 */
+	@Bean
+	public Step workerStep() {
+		ItemStreamReader<Person> reader = importProperties.getReader() == Reader.MAPPED
+				? mappedPartitionReader(null, null)
+				: partitionReader(null, null);
+		return chunk("workerStep").reader(reader).processor(stepProcessor()).writer(stepWriter()).build();
+	}
+
+	/**
+	 * Creates a reader for the line range assigned to the current partition.
+	 * 
+	 * @param startLine
+	 * @param itemCount
+	 * @return
+	 */
+	@Bean
+	@StepScope
+	public FlatFileItemReader<Person> partitionReader(
+			@Value("#{stepExecutionContext['" + LineRangePartitioner.START_LINE + "']}") Integer startLine,
+			@Value("#{stepExecutionContext['" + LineRangePartitioner.ITEM_COUNT + "']}") Integer itemCount) {
+		return flatFileReader("partitionItemReader", input()).linesToSkip(startLine).maxItemCount(itemCount)
+				.build();
+	}
+
+	/**
+	 * Creates a mapped reader for the byte range assigned to the current
+	 * partition.
+	 * 
+	 * @param startOffset
+	 * @param endOffset
+	 * @return
+	 */
+	@Bean
+	@StepScope
+	public MappedPersonItemReader mappedPartitionReader(
+			@Value("#{stepExecutionContext['" + ByteRangePartitioner.START_OFFSET + "']}") Long startOffset,
+			@Value("#{stepExecutionContext['" + ByteRangePartitioner.END_OFFSET + "']}") Long endOffset) {
+		MappedPersonItemReader reader = new MappedPersonItemReader(input());
+		reader.setStartOffset(startOffset);
+		reader.setEndOffset(endOffset);
+		return reader;
+	}
+
+	/**
+	 * Imports every file matching the import.input pattern in a split flow. Each
+	 * file gets a flow with a step of its own, named after the file, and the flows
+	 * run on the file TaskExecutor, at most import.multi-file.parallelism at a
+	 * time. A file that fails does not stop the others, and since every file step
+	 * keeps its own execution context a restart only re-runs the failed files.
+	 */
+	private Flow multiFileFlow() {
+		Resource[] files = inputs();
+		if (files.length == 0) {
+			throw new IllegalStateException("No input files match " + importProperties.getInput());
+		}
+		Set<String> stepNames = new HashSet<>();
+		Flow[] flows = new Flow[files.length];
+		for (int i = 0; i < files.length; i++) {
+			String stepName = "importFile." + files[i].getFilename();
+			if (!stepNames.add(stepName)) {
+				throw new IllegalStateException("More than one input file is named " + files[i].getFilename());
+			}
+			ItemStreamReader<Person> reader = importProperties.getReader() == Reader.MAPPED
+					? new MappedPersonItemReader(files[i])
+					: flatFileReader("personItemReader", files[i]).build();
+			Step step = chunk(stepName).reader(reader).processor(stepProcessor()).writer(stepWriter()).build();
+			flows[i] = new FlowBuilder<SimpleFlow>(stepName).start(step).build();
+		}
+		return new FlowBuilder<SimpleFlow>("multiFileFlow").split(fileTaskExecutor()).add(flows).build();
+	}
+
+	/**
+	 * Boot's batch configuration, except that in MULTI_FILE mode job and step
+	 * executions are created with READ_COMMITTED instead of SERIALIZABLE
+	 * isolation. The flows of a split create their step executions concurrently,
+	 * which SERIALIZABLE turns into serialization failures on the job repository
+	 * tables.
+	 * 
+	 * SERIALIZABLE is what stops two launches of the same job instance from both
+	 * creating an execution. The other modes keep it, as they gain nothing from
+	 * giving it up. MULTI_FILE relies on the job instance being launched once at a
+	 * time instead, which holds for this application, and on the step names being
+	 * unique within the split, which multiFileFlow() checks.
+	 */
+	@Bean
+	public BasicBatchConfigurer batchConfigurer(BatchProperties properties, DataSource dataSource,
+			ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+		return new BasicBatchConfigurer(properties, dataSource, transactionManagerCustomizers.getIfAvailable()) {
+
+			@Override
+			protected String determineIsolationLevel() {
+				return importProperties.getMode() == Mode.MULTI_FILE ? "ISOLATION_READ_COMMITTED"
+						: super.determineIsolationLevel();
+			}
+
+		};
+	}
+
+	@Bean
+	public TaskExecutor fileTaskExecutor() {
+		int parallelism = importProperties.getMultiFile().getParallelism();
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(parallelism);
+		executor.setMaxPoolSize(parallelism);
+		executor.setThreadNamePrefix("import-file-");
+		// the split waits for all of its flows, idle threads must not keep the JVM alive
+		executor.setDaemon(true);
+		return executor;
+	}
+
+	/**
+	 * Creates the processor that filters out people the step already wrote, one
+	 * per step since it remembers what the step has seen.
+	 */
+	@Bean
+	@StepScope
+	public DeduplicatingItemProcessor deduplicatingProcessor() {
+		return new DeduplicatingItemProcessor(processor(), importProperties.getDedup().getMaxEntries());
+	}
+
+	/**
+	 * Creates the listener that times the reads, processing and writes of the
+	 * current step and counts its commits and skips.
+	 */
+	@Bean
+	@StepScope
+	public StepMetricsListener stepMetricsListener() {
+		return new StepMetricsListener(meterRegistry);
+	}
+
+	/**
+	 * Creates the listener that sums the checksum of the items the current step
+	 * writes, which the job verifies against the people table.
+	 */
+	@Bean
+	@StepScope
+	public WriteChecksumListener writeChecksumListener() {
+		return new WriteChecksumListener();
+	}
+
+	/**
+	 * Creates the policy that sizes the chunks of the current step at runtime.
+	 * It is step scoped because it keeps the measurements of its step.
+	 * 
+	 * @return
+	 */
+	@Bean
+	@StepScope
+	public AdaptiveChunkCompletionPolicy chunkCompletionPolicy() {
+		Chunk chunk = importProperties.getChunk();
+		return new AdaptiveChunkCompletionPolicy(chunk.getSize(), chunk.getMinSize(), chunk.getMaxSize(),
+				chunk.getTargetLatency(), meterRegistry);
+	}
+
+	@Bean
+	public TaskExecutor partitionTaskExecutor() {
+		int gridSize = importProperties.getPartition().getGridSize();
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(gridSize);
+		executor.setMaxPoolSize(gridSize);
+		executor.setThreadNamePrefix("import-");
+		// the manager step waits for its workers, idle threads must not keep the JVM alive
+		executor.setDaemon(true);
+		return executor;
+	}
+
+	/**
+	 * Starts a chunk oriented step, with chunks of import.chunk.size items or, if
+	 * import.chunk.adaptive is set, sized by the chunkCompletionPolicy.
+	 */
+	private SimpleStepBuilder<Person, Person> chunk(String stepName) {
+		Chunk chunk = importProperties.getChunk();
+		SimpleStepBuilder<Person, Person> builder;
+		if (chunk.isAdaptive()) {
+			AdaptiveChunkCompletionPolicy policy = chunkCompletionPolicy();
+			builder = stepBuilderFactory.get(stepName).<Person, Person>chunk(policy);
+			builder.listener((StepExecutionListener) policy);
+			builder.listener((ChunkListener) policy);
+			builder.listener((ItemWriteListener<Person>) policy);
+		} else {
+			builder = stepBuilderFactory.get(stepName).<Person, Person>chunk(chunk.getSize());
+		}
+		StepMetricsListener metrics = stepMetricsListener();
+		builder.listener((StepExecutionListener) metrics);
+		builder.listener((ChunkListener) metrics);
+		builder.listener((ItemReadListener<Person>) metrics);
+		builder.listener((ItemProcessListener<Person, Person>) metrics);
+		builder.listener((ItemWriteListener<Person>) metrics);
+		WriteChecksumListener checksum = writeChecksumListener();
+		builder.listener((StepExecutionListener) checksum);
+		builder.listener((ItemWriteListener<Person>) checksum);
+		return builder;
+	}
+
+	private ItemProcessor<Person, Person> stepProcessor() {
+		return importProperties.getDedup().isEnabled() ? deduplicatingProcessor() : processor();
+	}
+
+	private ItemWriter<Person> stepWriter() {
+		WriterMode mode = importProperties.getWriter().getMode();
+		return mode == WriterMode.MULTI_ROW || mode == WriterMode.STAGED ? bulkWriter(null) : writer(null);
+	}
+
+	private FlatFileItemReaderBuilder<Person> flatFileReader(String name, Resource resource) {
+		return new FlatFileItemReaderBuilder<Person>().name(name).resource(resource).delimited()
+				.names(new String[] { "firstName", "lastName" })
+				.fieldSetMapper(new BeanWrapperFieldSetMapper<Person>() {
+					{
+						setTargetType(Person.class);
+					}
+				});
+	}
+
+	private Resource input() {
+		return resourceLoader.getResource(importProperties.getInput());
+	}
+
+	private Resource[] inputs() {
+		try {
+			return ResourcePatternUtils.getResourcePatternResolver(resourceLoader)
+					.getResources(importProperties.getInput());
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to resolve input files " + importProperties.getInput(), e);
+		}
+	}
 }
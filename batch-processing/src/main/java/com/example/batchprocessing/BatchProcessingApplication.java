@@ -2,8 +2,10 @@ package com.example.batchprocessing;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties(ImportProperties.class)
 public class BatchProcessingApplication {
 
 	public static void main(String[] args) throws Exception {
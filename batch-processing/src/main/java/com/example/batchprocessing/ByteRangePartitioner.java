@@ -0,0 +1,77 @@
+package com.example.batchprocessing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+/**
+ * Splits a line oriented file into byte ranges of roughly equal size, each
+ * starting and ending on a line boundary. Each partition gets a
+ * {@code startOffset} and an {@code endOffset} in its execution context.
+ *
+ * Unlike {@link LineRangePartitioner} the file is not scanned, only a few bytes
+ * around each boundary are read.
+ */
+public class ByteRangePartitioner implements Partitioner {
+
+	public static final String START_OFFSET = "startOffset";
+
+	public static final String END_OFFSET = "endOffset";
+
+	private final Resource resource;
+
+	public ByteRangePartitioner(Resource resource) {
+		this.resource = resource;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		Map<String, ExecutionContext> result = new HashMap<>(gridSize);
+		try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long rangeSize = Math.max(1, size / Math.max(1, gridSize));
+			long start = 0;
+			for (int i = 0; start < size; i++) {
+				long end = i == gridSize - 1 ? size : nextLineStart(channel, start + rangeSize, size);
+				ExecutionContext context = new ExecutionContext();
+				context.putLong(START_OFFSET, start);
+				context.putLong(END_OFFSET, end);
+				result.put("partition" + i, context);
+				start = end;
+			}
+		} catch (IOException e) {
+			throw new ItemStreamException("Failed to partition " + resource + ", it must be a file system resource",
+					e);
+		}
+		return result;
+	}
+
+	private long nextLineStart(FileChannel channel, long offset, long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		// the byte before the offset tells whether the offset already starts a line
+		long position = offset - 1;
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.example.batchprocessing;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.util.Assert;
+
+/**
+ * Runs the delegate and then filters out people whose names the step has
+ * already passed on, so duplicates in the input are not written again.
+ *
+ * The names are kept in a set bounded to maxEntries that forgets the least
+ * recently seen names first. Forgetting only lets a duplicate through to the
+ * writer, it never drops a new name, which is why this is an exact set rather
+ * than a Bloom filter. Names of the current chunk only become seen once the
+ * chunk committed, so items processed again after a rollback are not lost.
+ *
+ * The processor keeps per step state and is registered as a chunk listener by
+ * the step builder, so each step needs an instance of its own.
+ */
+public class DeduplicatingItemProcessor implements ItemProcessor<Person, Person>, ChunkListener {
+
+	private final ItemProcessor<Person, Person> delegate;
+
+	private final Map<String, Boolean> seen;
+
+	private final Set<String> pending = new HashSet<>();
+
+	/**
+	 * @param delegate   the processor to run before deduplicating
+	 * @param maxEntries maximum number of names remembered
+	 */
+	public DeduplicatingItemProcessor(ItemProcessor<Person, Person> delegate, int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "maxEntries must be positive");
+		this.delegate = delegate;
+		this.seen = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > maxEntries;
+			}
+
+		};
+	}
+
+	@Override
+	public Person process(Person item) throws Exception {
+		Person person = delegate.process(item);
+		if (person == null) {
+			return null;
+		}
+		String key = person.getFirstName() + '\0' + person.getLastName();
+		if (seen.get(key) != null || !pending.add(key)) {
+			return null;
+		}
+		return person;
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+		pending.clear();
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		for (String key : pending) {
+			seen.put(key, Boolean.TRUE);
+		}
+		pending.clear();
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext context) {
+		pending.clear();
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.example.batchprocessing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Actuator endpoint showing the running executions of importUserJob with their
+ * steps, and the current values of the import meters, so a running import can
+ * be watched over JMX.
+ */
+@Component
+@Endpoint(id = "importjob")
+public class ImportJobEndpoint {
+
+	private static final String JOB_NAME = "importUserJob";
+
+	private final JobExplorer jobExplorer;
+
+	private final MeterRegistry registry;
+
+	public ImportJobEndpoint(JobExplorer jobExplorer, MeterRegistry registry) {
+		this.jobExplorer = jobExplorer;
+		this.registry = registry;
+	}
+
+	@ReadOperation
+	public Map<String, Object> importJob() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		List<Map<String, Object>> executions = new ArrayList<>();
+		for (JobExecution execution : jobExplorer.findRunningJobExecutions(JOB_NAME)) {
+			executions.add(describe(execution));
+		}
+		result.put("runningExecutions", executions);
+		Map<String, Object> meters = new LinkedHashMap<>();
+		for (Meter meter : registry.getMeters()) {
+			String name = meter.getId().getName();
+			if (name.startsWith("import.") && !name.endsWith(".percentile")) {
+				meters.put(key(meter), describe(meter));
+			}
+		}
+		result.put("meters", meters);
+		return result;
+	}
+
+	private Map<String, Object> describe(JobExecution execution) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("id", execution.getId());
+		result.put("startTime", execution.getStartTime());
+		List<Map<String, Object>> steps = new ArrayList<>();
+		for (StepExecution step : execution.getStepExecutions()) {
+			Map<String, Object> description = new LinkedHashMap<>();
+			description.put("name", step.getStepName());
+			description.put("status", step.getStatus());
+			description.put("readCount", step.getReadCount());
+			description.put("writeCount", step.getWriteCount());
+			description.put("commitCount", step.getCommitCount());
+			description.put("skipCount", step.getSkipCount());
+			steps.add(description);
+		}
+		result.put("steps", steps);
+		return result;
+	}
+
+	private static String key(Meter meter) {
+		StringBuilder key = new StringBuilder(meter.getId().getName());
+		for (Tag tag : meter.getId().getTagsAsIterable()) {
+			key.append(',').append(tag.getKey()).append('=').append(tag.getValue());
+		}
+		return key.toString();
+	}
+
+	private static Map<String, Object> describe(Meter meter) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		if (meter instanceof Timer) {
+			HistogramSnapshot snapshot = ((Timer) meter).takeSnapshot();
+			result.put("count", snapshot.count());
+			result.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+			result.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+			for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+				result.put("p" + Math.round(percentile.percentile() * 100) + "Ms",
+						percentile.value(TimeUnit.MILLISECONDS));
+			}
+			return result;
+		}
+		meter.measure().forEach(measurement -> result.put(measurement.getStatistic().getTagValueRepresentation(),
+				measurement.getValue()));
+		return result;
+	}
+
+}
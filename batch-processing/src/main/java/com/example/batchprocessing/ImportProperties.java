@@ -0,0 +1,416 @@
+package com.example.batchprocessing;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("import")
+public class ImportProperties {
+
+	/**
+	 * Location of the CSV file to import, as a Spring resource location. In
+	 * MULTI_FILE mode this is a pattern such as file:/data/people-*.csv.
+	 */
+	private String input = "classpath:sample-data.csv";
+
+	/**
+	 * How importUserJob executes its import step.
+	 */
+	private Mode mode = Mode.SINGLE;
+
+	/**
+	 * How the CSV input is parsed.
+	 */
+	private Reader reader = Reader.FLAT_FILE;
+
+	private final Partition partition = new Partition();
+
+	private final MultiFile multiFile = new MultiFile();
+
+	private final Writer writer = new Writer();
+
+	private final Chunk chunk = new Chunk();
+
+	private final Verify verify = new Verify();
+
+	private final Processor processor = new Processor();
+
+	private final Dedup dedup = new Dedup();
+
+	public String getInput() {
+		return input;
+	}
+
+	public void setInput(String input) {
+		this.input = input;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public void setMode(Mode mode) {
+		this.mode = mode;
+	}
+
+	public Reader getReader() {
+		return reader;
+	}
+
+	public void setReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	public Partition getPartition() {
+		return partition;
+	}
+
+	public MultiFile getMultiFile() {
+		return multiFile;
+	}
+
+	public Writer getWriter() {
+		return writer;
+	}
+
+	public Chunk getChunk() {
+		return chunk;
+	}
+
+	public Verify getVerify() {
+		return verify;
+	}
+
+	public Processor getProcessor() {
+		return processor;
+	}
+
+	public Dedup getDedup() {
+		return dedup;
+	}
+
+	public enum Mode {
+
+		/**
+		 * One single-threaded chunk step over the whole input.
+		 */
+		SINGLE,
+
+		/**
+		 * The input is split into line ranges, each imported by its own worker step.
+		 */
+		PARTITIONED,
+
+		/**
+		 * Every file matching the input pattern is imported by its own step, the
+		 * steps running in parallel in a split flow.
+		 */
+		MULTI_FILE
+
+	}
+
+	public enum Reader {
+
+		/**
+		 * FlatFileItemReader with a BeanWrapperFieldSetMapper.
+		 */
+		FLAT_FILE,
+
+		/**
+		 * MappedPersonItemReader, which needs the input to be a file. Partitions are
+		 * split by byte range instead of line range.
+		 */
+		MAPPED
+
+	}
+
+	public static class Partition {
+
+		/**
+		 * Number of partitions the input is split into, which is also the number of
+		 * worker threads.
+		 */
+		private int gridSize = Runtime.getRuntime().availableProcessors();
+
+		public int getGridSize() {
+			return gridSize;
+		}
+
+		public void setGridSize(int gridSize) {
+			this.gridSize = gridSize;
+		}
+
+	}
+
+	public static class MultiFile {
+
+		/**
+		 * Maximum number of files imported at the same time.
+		 */
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+	}
+
+	public static class Chunk {
+
+		/**
+		 * Number of items per chunk, the initial size when adaptive sizing is on.
+		 */
+		private int size = 10;
+
+		/**
+		 * Whether the chunk size is adjusted at runtime towards the target latency.
+		 */
+		private boolean adaptive = false;
+
+		/**
+		 * Lower bound of the adaptive chunk size.
+		 */
+		private int minSize = 10;
+
+		/**
+		 * Upper bound of the adaptive chunk size.
+		 */
+		private int maxSize = 10000;
+
+		/**
+		 * Time the writer should take to write a chunk, not counting the commit.
+		 */
+		private Duration targetLatency = Duration.ofMillis(200);
+
+		public int getSize() {
+			return size;
+		}
+
+		public void setSize(int size) {
+			this.size = size;
+		}
+
+		public boolean isAdaptive() {
+			return adaptive;
+		}
+
+		public void setAdaptive(boolean adaptive) {
+			this.adaptive = adaptive;
+		}
+
+		public int getMinSize() {
+			return minSize;
+		}
+
+		public void setMinSize(int minSize) {
+			this.minSize = minSize;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Duration getTargetLatency() {
+			return targetLatency;
+		}
+
+		public void setTargetLatency(Duration targetLatency) {
+			this.targetLatency = targetLatency;
+		}
+
+	}
+
+	public static class Processor {
+
+		/**
+		 * Whether names are trimmed before they are upper-cased.
+		 */
+		private boolean trim = false;
+
+		/**
+		 * Whether people with missing or too long names are filtered out.
+		 */
+		private boolean validate = false;
+
+		/**
+		 * Longest name accepted by the validation, the width of the name columns.
+		 */
+		private int maxNameLength = 20;
+
+		/**
+		 * Log one in this many processed items, 0 to log none.
+		 */
+		private int logSampleRate = 1;
+
+		public boolean isTrim() {
+			return trim;
+		}
+
+		public void setTrim(boolean trim) {
+			this.trim = trim;
+		}
+
+		public boolean isValidate() {
+			return validate;
+		}
+
+		public void setValidate(boolean validate) {
+			this.validate = validate;
+		}
+
+		public int getMaxNameLength() {
+			return maxNameLength;
+		}
+
+		public void setMaxNameLength(int maxNameLength) {
+			this.maxNameLength = maxNameLength;
+		}
+
+		public int getLogSampleRate() {
+			return logSampleRate;
+		}
+
+		public void setLogSampleRate(int logSampleRate) {
+			this.logSampleRate = logSampleRate;
+		}
+
+	}
+
+	public static class Dedup {
+
+		/**
+		 * Whether each step filters out people it has already written.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of names a step remembers, the least recently seen are
+		 * forgotten first.
+		 */
+		private int maxEntries = 100_000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxEntries() {
+			return maxEntries;
+		}
+
+		public void setMaxEntries(int maxEntries) {
+			this.maxEntries = maxEntries;
+		}
+
+	}
+
+	public static class Verify {
+
+		/**
+		 * Number of rows fetched per round trip while verifying the people table.
+		 */
+		private int fetchSize = 1000;
+
+		/**
+		 * Number of rows logged as a sample after the job completed.
+		 */
+		private int sampleSize = 10;
+
+		public int getFetchSize() {
+			return fetchSize;
+		}
+
+		public void setFetchSize(int fetchSize) {
+			this.fetchSize = fetchSize;
+		}
+
+		public int getSampleSize() {
+			return sampleSize;
+		}
+
+		public void setSampleSize(int sampleSize) {
+			this.sampleSize = sampleSize;
+		}
+
+	}
+
+	public static class Writer {
+
+		/**
+		 * How Person items are written to the people table.
+		 */
+		private WriterMode mode = WriterMode.BEAN_PROPERTY;
+
+		/**
+		 * Maximum number of rows per multi-row insert statement.
+		 */
+		private int rowsPerStatement = 100;
+
+		public WriterMode getMode() {
+			return mode;
+		}
+
+		public void setMode(WriterMode mode) {
+			this.mode = mode;
+		}
+
+		public int getRowsPerStatement() {
+			return rowsPerStatement;
+		}
+
+		public void setRowsPerStatement(int rowsPerStatement) {
+			this.rowsPerStatement = rowsPerStatement;
+		}
+
+	}
+
+	/**
+	 * How the writer inserts people. People are unique by first and last name:
+	 * UPSERT skips a person already in the table, every other mode fails the
+	 * chunk, and so the step, on one. That includes people imported by an
+	 * earlier run and people in more than one input file.
+	 */
+	public enum WriterMode {
+
+		/**
+		 * JdbcBatchItemWriter binding named parameters from bean properties.
+		 */
+		BEAN_PROPERTY,
+
+		/**
+		 * JdbcBatchItemWriter binding the fields directly, one batched insert per
+		 * item.
+		 */
+		DIRECT,
+
+		/**
+		 * Multi-row inserts of up to rows-per-statement rows.
+		 */
+		MULTI_ROW,
+
+		/**
+		 * Multi-row inserts into the people_stage table, moved into people with an
+		 * INSERT ... SELECT per chunk.
+		 */
+		STAGED,
+
+		/**
+		 * JdbcBatchItemWriter with a batched MERGE (or the dialect's equivalent)
+		 * that skips people already in the table.
+		 */
+		UPSERT
+
+	}
+
+}
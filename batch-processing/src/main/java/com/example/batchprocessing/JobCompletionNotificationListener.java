@@ -1,12 +1,22 @@
 package com.example.batchprocessing;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.listener.JobExecutionListenerSupport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -14,11 +24,23 @@ public class JobCompletionNotificationListener extends JobExecutionListenerSuppo
 
 	private static final Logger log = LoggerFactory.getLogger(JobCompletionNotificationListener.class);
 
+	private static final String VERIFY_SQL = "SELECT first_name, last_name FROM people";
+
 	private final JdbcTemplate jdbcTemplate;
 
+	private final JobExplorer jobExplorer;
+
+	private final ImportProperties.Verify verify;
+
+	private final boolean upsert;
+
 	@Autowired
-	public JobCompletionNotificationListener(JdbcTemplate jdbcTemplate) {
+	public JobCompletionNotificationListener(JdbcTemplate jdbcTemplate, JobExplorer jobExplorer,
+			ImportProperties importProperties) {
 		this.jdbcTemplate = jdbcTemplate;
+		this.jobExplorer = jobExplorer;
+		this.verify = importProperties.getVerify();
+		this.upsert = importProperties.getWriter().getMode() == ImportProperties.WriterMode.UPSERT;
 	}
 
 	@Override
@@ -26,11 +48,95 @@ public class JobCompletionNotificationListener extends JobExecutionListenerSuppo
 		// Listens for when a job is BatchStatus.COMPLETED.
 		if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
 			log.info("!!! JOB FINISHED! Time to verify the results");
-			// Uses JdbcTemplate to inspect the results.
-			jdbcTemplate
-					.query("SELECT first_name, last_name FROM people",
-							(rs, row) -> new Person(rs.getString(1), rs.getString(2)))
-					.forEach(person -> log.info("Found <" + person + "> in the database."));
+			// Streams the people table through JdbcTemplate, so memory use does not
+			// depend on the number of rows.
+			Verification verification = new Verification(verify.getSampleSize());
+			jdbcTemplate.query(con -> {
+				PreparedStatement ps = con.prepareStatement(VERIFY_SQL);
+				ps.setFetchSize(verify.getFetchSize());
+				return ps;
+			}, verification);
+
+			Written written = new Written(jobExplorer.getJobExecutions(jobExecution.getJobInstance()));
+			log.info("Verified {} rows in the database (checksum {}), the job wrote {} items (checksum {})",
+					verification.getCount(), Long.toHexString(verification.getChecksum()), written.count,
+					Long.toHexString(written.checksum));
+			// upserted people that were already in the table count as written
+			if (upsert ? verification.getCount() > written.count : verification.getCount() != written.count) {
+				log.warn("Row count {} does not match the write count {}", verification.getCount(), written.count);
+			}
+			if (!upsert && verification.getChecksum() != written.checksum) {
+				log.warn("Checksum {} of the rows does not match the checksum {} of the written items",
+						Long.toHexString(verification.getChecksum()), Long.toHexString(written.checksum));
+			}
+		}
+	}
+
+	/**
+	 * What all executions of the job instance wrote, so items written before a
+	 * restart are included. Only the steps with a
+	 * {@link WriteChecksumListener#CHECKSUM} write items, which leaves out the
+	 * partition manager step whose counts aggregate those of its workers.
+	 */
+	private static class Written {
+
+		private long count;
+
+		private long checksum;
+
+		Written(List<JobExecution> jobExecutions) {
+			// the checksum of a step is carried over to its restarts, so only the last one counts
+			Map<String, StepExecution> lastExecutions = new HashMap<>();
+			for (JobExecution jobExecution : jobExecutions) {
+				for (StepExecution execution : jobExecution.getStepExecutions()) {
+					if (execution.getExecutionContext().containsKey(WriteChecksumListener.CHECKSUM)) {
+						count += execution.getWriteCount();
+						lastExecutions.merge(execution.getStepName(), execution,
+								(a, b) -> a.getId() > b.getId() ? a : b);
+					}
+				}
+			}
+			for (StepExecution execution : lastExecutions.values()) {
+				checksum += execution.getExecutionContext().getLong(WriteChecksumListener.CHECKSUM);
+			}
 		}
+
+	}
+
+	/**
+	 * Counts the rows and sums their {@link PersonChecksum}. The sum does not
+	 * depend on the row order, so it is stable across partitioned imports.
+	 */
+	private static class Verification implements RowCallbackHandler {
+
+		private final int sampleSize;
+
+		private long count;
+
+		private long checksum;
+
+		Verification(int sampleSize) {
+			this.sampleSize = sampleSize;
+		}
+
+		@Override
+		public void processRow(ResultSet rs) throws SQLException {
+			String firstName = rs.getString(1);
+			String lastName = rs.getString(2);
+			if (count < sampleSize) {
+				log.info("Found <{}> in the database.", new Person(firstName, lastName));
+			}
+			count++;
+			checksum += PersonChecksum.hash(firstName, lastName);
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		long getChecksum() {
+			return checksum;
+		}
+
 	}
 }
@@ -0,0 +1,75 @@
+package com.example.batchprocessing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+/**
+ * Splits a line oriented resource into contiguous line ranges of roughly equal
+ * size. Each partition gets a {@code startLine} (the number of lines to skip)
+ * and an {@code itemCount} (the number of lines to read) in its execution
+ * context.
+ */
+public class LineRangePartitioner implements Partitioner {
+
+	public static final String START_LINE = "startLine";
+
+	public static final String ITEM_COUNT = "itemCount";
+
+	private final Resource resource;
+
+	public LineRangePartitioner(Resource resource) {
+		this.resource = resource;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		long lines = countLines();
+		int partitions = (int) Math.max(1, Math.min(gridSize, lines));
+		long rangeSize = lines / partitions;
+		long remainder = lines % partitions;
+
+		Map<String, ExecutionContext> result = new HashMap<>(partitions);
+		long startLine = 0;
+		for (int i = 0; i < partitions; i++) {
+			// spread the remainder over the first partitions
+			long itemCount = rangeSize + (i < remainder ? 1 : 0);
+			ExecutionContext context = new ExecutionContext();
+			context.putInt(START_LINE, Math.toIntExact(startLine));
+			context.putInt(ITEM_COUNT, Math.toIntExact(itemCount));
+			result.put("partition" + i, context);
+			startLine += itemCount;
+		}
+		return result;
+	}
+
+	private long countLines() {
+		byte[] buffer = new byte[64 * 1024];
+		long lines = 0;
+		byte last = '\n';
+		try (InputStream in = resource.getInputStream()) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				for (int i = 0; i < read; i++) {
+					if (buffer[i] == '\n') {
+						lines++;
+					}
+				}
+				if (read > 0) {
+					last = buffer[read - 1];
+				}
+			}
+		} catch (IOException e) {
+			throw new ItemStreamException("Failed to count lines of " + resource, e);
+		}
+		// a last line without a trailing line feed still counts
+		return last == '\n' ? lines : lines + 1;
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.example.batchprocessing;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * Writes Person items into the people table with multi-row
+ * {@code INSERT ... VALUES (...),(...)} statements of up to rowsPerStatement
+ * rows, binding the fields directly instead of through bean reflection.
+ *
+ * With a staging table the chunk is first bulk inserted into that table, tagged
+ * with a load id, and then moved into people with a single
+ * {@code INSERT ... SELECT}. Everything runs in the chunk transaction, so the
+ * staging table only ever holds rows of chunks in flight.
+ */
+public class PersonBulkItemWriter implements ItemWriter<Person> {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final int rowsPerStatement;
+
+	private final String stagingTable;
+
+	private final String[] insertSql;
+
+	/**
+	 * @param dataSource       the data source holding the people table
+	 * @param rowsPerStatement maximum number of rows per insert statement
+	 * @param stagingTable     the table to bulk load chunks into first, or null
+	 *                         to insert into people directly
+	 */
+	public PersonBulkItemWriter(DataSource dataSource, int rowsPerStatement, String stagingTable) {
+		Assert.isTrue(rowsPerStatement > 0, "rowsPerStatement must be positive");
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.rowsPerStatement = rowsPerStatement;
+		this.stagingTable = stagingTable;
+		this.insertSql = new String[rowsPerStatement + 1];
+	}
+
+	@Override
+	public void write(List<? extends Person> items) throws Exception {
+		if (items.isEmpty()) {
+			return;
+		}
+		if (stagingTable == null) {
+			insert(items, null);
+			return;
+		}
+		String loadId = UUID.randomUUID().toString();
+		insert(items, loadId);
+		String copySql = "INSERT INTO people (first_name, last_name) SELECT first_name, last_name FROM "
+				+ stagingTable + " WHERE load_id = ?";
+		int copied = jdbcTemplate.update(copySql, loadId);
+		if (copied != items.size()) {
+			throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(copySql, items.size(), copied);
+		}
+		jdbcTemplate.update("DELETE FROM " + stagingTable + " WHERE load_id = ?", loadId);
+	}
+
+	private void insert(List<? extends Person> items, String loadId) {
+		int fullStatements = items.size() / rowsPerStatement;
+		if (fullStatements > 0) {
+			String sql = insertSql(rowsPerStatement);
+			int[] counts = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					bind(ps, items, i * rowsPerStatement, rowsPerStatement, loadId);
+				}
+
+				@Override
+				public int getBatchSize() {
+					return fullStatements;
+				}
+
+			});
+			for (int count : counts) {
+				if (count != rowsPerStatement && count != Statement.SUCCESS_NO_INFO) {
+					throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(sql, rowsPerStatement, count);
+				}
+			}
+		}
+		int remaining = items.size() % rowsPerStatement;
+		if (remaining > 0) {
+			String sql = insertSql(remaining);
+			int count = jdbcTemplate.update(sql,
+					ps -> bind(ps, items, fullStatements * rowsPerStatement, remaining, loadId));
+			if (count != remaining) {
+				throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(sql, remaining, count);
+			}
+		}
+	}
+
+	private static void bind(PreparedStatement ps, List<? extends Person> items, int from, int rows, String loadId)
+			throws SQLException {
+		int index = 1;
+		for (int i = from; i < from + rows; i++) {
+			if (loadId != null) {
+				ps.setString(index++, loadId);
+			}
+			index = PersonPreparedStatementSetter.setValues(items.get(i), ps, index);
+		}
+	}
+
+	private String insertSql(int rows) {
+		String sql = insertSql[rows];
+		if (sql == null) {
+			StringBuilder builder = new StringBuilder(64 + rows * 10);
+			boolean staged = stagingTable != null;
+			if (staged) {
+				builder.append("INSERT INTO ").append(stagingTable).append(" (load_id, first_name, last_name) VALUES ");
+			} else {
+				builder.append("INSERT INTO people (first_name, last_name) VALUES ");
+			}
+			String row = staged ? "(?, ?, ?)" : "(?, ?)";
+			for (int i = 0; i < rows; i++) {
+				builder.append(i == 0 ? "" : ", ").append(row);
+			}
+			sql = builder.toString();
+			insertSql[rows] = sql;
+		}
+		return sql;
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.example.batchprocessing;
+
+/**
+ * The 64-bit hash of a person that the import sums into a checksum, once for
+ * the items it writes and once for the rows it reads back. A sum does not
+ * depend on the order of the people, so it is the same however the import
+ * split its work.
+ */
+final class PersonChecksum {
+
+	private PersonChecksum() {
+	}
+
+	static long hash(String firstName, String lastName) {
+		return mix(31L * hash(firstName) + hash(lastName));
+	}
+
+	static long hash(Person person) {
+		return hash(person.getFirstName(), person.getLastName());
+	}
+
+	private static long hash(String value) {
+		return value == null ? 0 : value.hashCode();
+	}
+
+	// SplitMix64's finalizer
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -1,24 +1,62 @@
 package com.example.batchprocessing;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.batch.item.ItemProcessor;
 
+/**
+ * Runs a Person through a PersonTransform, upper-casing the names by default.
+ * The item is changed in place and returned, or filtered out (null) when the
+ * transform rejects it.
+ *
+ * Only every logSampleRate-th item is logged, with parameterized messages, so
+ * items that are not sampled cost neither string building nor logging.
+ */
 public class PersonItemProcessor implements ItemProcessor<Person, Person> {
 
 	private static final Logger log = LoggerFactory.getLogger(PersonItemProcessor.class);
 
-	@Override
-	public Person process(final Person person) throws Exception {
-		final String firstName = person.getFirstName().toUpperCase();
-		final String lastName = person.getLastName().toUpperCase();
+	private final PersonTransform transform;
 
-		final Person transformedPerson = new Person(firstName, lastName);
+	private final int logSampleRate;
+
+	private final AtomicLong processed = new AtomicLong();
+
+	public PersonItemProcessor() {
+		this(PersonTransform.upperCase(), 1);
+	}
 
-		log.info("Converting (" + person + ") into (" + transformedPerson + ")");
+	/**
+	 * @param transform     the transform applied to every item
+	 * @param logSampleRate log one in this many items, 0 to log none
+	 */
+	public PersonItemProcessor(PersonTransform transform, int logSampleRate) {
+		this.transform = transform;
+		this.logSampleRate = logSampleRate;
+	}
+
+	@Override
+	public Person process(final Person person) throws Exception {
+		if (!isSampled()) {
+			return transform.apply(person) ? person : null;
+		}
+
+		final String firstName = person.getFirstName();
+		final String lastName = person.getLastName();
+		if (!transform.apply(person)) {
+			log.info("Filtering out (firstName: {}, lastName: {})", firstName, lastName);
+			return null;
+		}
+		log.info("Converting (firstName: {}, lastName: {}) into (firstName: {}, lastName: {})", firstName, lastName,
+				person.getFirstName(), person.getLastName());
+		return person;
+	}
 
-		return transformedPerson;
+	private boolean isSampled() {
+		return logSampleRate > 0 && log.isInfoEnabled() && processed.getAndIncrement() % logSampleRate == 0;
 	}
 
 }
@@ -0,0 +1,30 @@
+package com.example.batchprocessing;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+
+/**
+ * Binds the fields of a Person to the {@code (first_name, last_name)}
+ * placeholders of an insert statement without going through bean reflection.
+ */
+public class PersonPreparedStatementSetter implements ItemPreparedStatementSetter<Person> {
+
+	@Override
+	public void setValues(Person person, PreparedStatement ps) throws SQLException {
+		setValues(person, ps, 1);
+	}
+
+	/**
+	 * Binds the person to the two placeholders starting at the given index.
+	 *
+	 * @return the index of the next placeholder
+	 */
+	static int setValues(Person person, PreparedStatement ps, int index) throws SQLException {
+		ps.setString(index++, person.getFirstName());
+		ps.setString(index++, person.getLastName());
+		return index;
+	}
+
+}
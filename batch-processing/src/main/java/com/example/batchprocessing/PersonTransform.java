@@ -0,0 +1,69 @@
+package com.example.batchprocessing;
+
+/**
+ * A step of the PersonItemProcessor pipeline. Transforms change the Person in
+ * place instead of creating a new one, and the built-in ones do not allocate
+ * when a name is already in the expected form. Transforms must be idempotent,
+ * since an item may be processed again after a rollback.
+ */
+@FunctionalInterface
+public interface PersonTransform {
+
+	/**
+	 * Transforms the person in place.
+	 *
+	 * @return false to filter the person out of the step
+	 */
+	boolean apply(Person person);
+
+	/**
+	 * Returns a transform that applies this transform and then the next one,
+	 * unless this one filtered the person out.
+	 */
+	default PersonTransform andThen(PersonTransform next) {
+		return person -> apply(person) && next.apply(person);
+	}
+
+	/**
+	 * Removes leading and trailing whitespace from both names.
+	 */
+	static PersonTransform trim() {
+		return person -> {
+			if (person.getFirstName() != null) {
+				person.setFirstName(person.getFirstName().trim());
+			}
+			if (person.getLastName() != null) {
+				person.setLastName(person.getLastName().trim());
+			}
+			return true;
+		};
+	}
+
+	/**
+	 * Converts both names to upper case.
+	 */
+	static PersonTransform upperCase() {
+		return person -> {
+			if (person.getFirstName() != null) {
+				person.setFirstName(person.getFirstName().toUpperCase());
+			}
+			if (person.getLastName() != null) {
+				person.setLastName(person.getLastName().toUpperCase());
+			}
+			return true;
+		};
+	}
+
+	/**
+	 * Filters out people whose names are missing, empty or longer than the given
+	 * length.
+	 */
+	static PersonTransform validNames(int maxLength) {
+		return person -> isValid(person.getFirstName(), maxLength) && isValid(person.getLastName(), maxLength);
+	}
+
+	static boolean isValid(String name, int maxLength) {
+		return name != null && !name.isEmpty() && name.length() <= maxLength;
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.example.batchprocessing;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.support.DatabaseType;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+/**
+ * The statement that inserts a person into the people table unless the
+ * {@code (first_name, last_name)} key is already there, in the dialect of the
+ * database. The key covers every column, so a matching row is left as it is.
+ * Each statement has the {@code (first_name, last_name)} placeholders of
+ * PersonPreparedStatementSetter.
+ */
+final class PersonUpsertStatements {
+
+	private PersonUpsertStatements() {
+	}
+
+	static String upsertSql(DataSource dataSource) {
+		DatabaseType type;
+		try {
+			type = DatabaseType.fromMetaData(dataSource);
+		} catch (MetaDataAccessException e) {
+			throw new IllegalStateException("Failed to determine the database type", e);
+		}
+		switch (type) {
+		case HSQL:
+			return "MERGE INTO people USING (VALUES (CAST(? AS VARCHAR(20)), CAST(? AS VARCHAR(20))))"
+					+ " AS v (first_name, last_name)"
+					+ " ON people.first_name = v.first_name AND people.last_name = v.last_name"
+					+ " WHEN NOT MATCHED THEN INSERT (first_name, last_name) VALUES (v.first_name, v.last_name)";
+		case H2:
+			return "MERGE INTO people (first_name, last_name) KEY (first_name, last_name) VALUES (?, ?)";
+		case MYSQL:
+			return "INSERT INTO people (first_name, last_name) VALUES (?, ?)"
+					+ " ON DUPLICATE KEY UPDATE person_id = person_id";
+		case POSTGRES:
+			return "INSERT INTO people (first_name, last_name) VALUES (?, ?)"
+					+ " ON CONFLICT (first_name, last_name) DO NOTHING";
+		default:
+			throw new IllegalStateException("No upsert statement for database type " + type);
+		}
+	}
+
+}
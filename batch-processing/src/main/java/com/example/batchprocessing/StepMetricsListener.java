@@ -0,0 +1,196 @@
+package com.example.batchprocessing;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records where the time of a step goes, as Micrometer meters tagged with the
+ * step name:
+ * <ul>
+ * <li>{@code import.item.read}, {@code import.item.process} and
+ * {@code import.chunk.write} timers with percentile histograms, per item for
+ * reading and processing and per chunk for writing</li>
+ * <li>the {@code import.items.per.second} gauge, items written per second
+ * since the step started</li>
+ * <li>{@code import.items.written}, {@code import.items.filtered},
+ * {@code import.chunk.commits}, {@code import.chunk.rollbacks} and
+ * {@code import.items.skipped} counters, the last one tagged with the phase
+ * the items were skipped in</li>
+ * </ul>
+ *
+ * The counters follow the counts of the step execution after every chunk
+ * rather than counting each item. The listener keeps per step state, so each
+ * step (and each partition) needs an instance of its own.
+ */
+public class StepMetricsListener implements StepExecutionListener, ChunkListener, ItemReadListener<Person>,
+		ItemProcessListener<Person, Person>, ItemWriteListener<Person> {
+
+	private static final String[] SKIP_PHASES = { "read", "process", "write" };
+
+	private final MeterRegistry registry;
+
+	private StepExecution stepExecution;
+
+	private Timer readTimer;
+
+	private Timer processTimer;
+
+	private Timer writeTimer;
+
+	private Gauge throughput;
+
+	private Counter written;
+
+	private Counter filtered;
+
+	private Counter commits;
+
+	private Counter rollbacks;
+
+	private final Counter[] skipped = new Counter[SKIP_PHASES.length];
+
+	private final long[] counts = new long[4 + SKIP_PHASES.length];
+
+	private long stepStart;
+
+	private long readStart;
+
+	private long processStart;
+
+	private long writeStart;
+
+	public StepMetricsListener(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		this.stepExecution = stepExecution;
+		String step = stepExecution.getStepName();
+		readTimer = timer("import.item.read", step, "Time to read an item");
+		processTimer = timer("import.item.process", step, "Time to process an item");
+		writeTimer = timer("import.chunk.write", step, "Time to write a chunk");
+		throughput = Gauge.builder("import.items.per.second", this, StepMetricsListener::itemsPerSecond)
+				.tag("step", step).description("Items written per second since the step started").register(registry);
+		written = counter("import.items.written", step, "Items written");
+		filtered = counter("import.items.filtered", step, "Items filtered out by the processor");
+		commits = counter("import.chunk.commits", step, "Committed chunks");
+		rollbacks = counter("import.chunk.rollbacks", step, "Rolled back chunks");
+		for (int i = 0; i < SKIP_PHASES.length; i++) {
+			skipped[i] = Counter.builder("import.items.skipped").tag("step", step).tag("phase", SKIP_PHASES[i])
+					.description("Items skipped").register(registry);
+		}
+		stepStart = System.nanoTime();
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		updateCounters();
+		registry.remove(throughput);
+		return null;
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		updateCounters();
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext context) {
+		updateCounters();
+	}
+
+	@Override
+	public void beforeRead() {
+		readStart = System.nanoTime();
+	}
+
+	@Override
+	public void afterRead(Person item) {
+		readTimer.record(System.nanoTime() - readStart, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void onReadError(Exception ex) {
+	}
+
+	@Override
+	public void beforeProcess(Person item) {
+		processStart = System.nanoTime();
+	}
+
+	@Override
+	public void afterProcess(Person item, Person result) {
+		processTimer.record(System.nanoTime() - processStart, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void onProcessError(Person item, Exception e) {
+	}
+
+	@Override
+	public void beforeWrite(List<? extends Person> items) {
+		writeStart = System.nanoTime();
+	}
+
+	@Override
+	public void afterWrite(List<? extends Person> items) {
+		writeTimer.record(System.nanoTime() - writeStart, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void onWriteError(Exception exception, List<? extends Person> items) {
+	}
+
+	private double itemsPerSecond() {
+		double seconds = (System.nanoTime() - stepStart) / 1e9;
+		return seconds > 0 ? stepExecution.getWriteCount() / seconds : 0;
+	}
+
+	// adds what the step execution counted since the last update
+	private void updateCounters() {
+		StepExecution execution = stepExecution;
+		increment(written, 0, execution.getWriteCount());
+		increment(filtered, 1, execution.getFilterCount());
+		increment(commits, 2, execution.getCommitCount());
+		increment(rollbacks, 3, execution.getRollbackCount());
+		increment(skipped[0], 4, execution.getReadSkipCount());
+		increment(skipped[1], 5, execution.getProcessSkipCount());
+		increment(skipped[2], 6, execution.getWriteSkipCount());
+	}
+
+	private void increment(Counter counter, int index, long count) {
+		if (count > counts[index]) {
+			counter.increment(count - counts[index]);
+			counts[index] = count;
+		}
+	}
+
+	private Timer timer(String name, String step, String description) {
+		return Timer.builder(name).tag("step", step).description(description).publishPercentiles(0.5, 0.95, 0.99)
+				.publishPercentileHistogram().register(registry);
+	}
+
+	private Counter counter(String name, String step, String description) {
+		return Counter.builder(name).tag("step", step).description(description).register(registry);
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.example.batchprocessing;
+
+import java.util.List;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * Sums the {@link PersonChecksum} of the items a step writes into its
+ * execution context, where JobCompletionNotificationListener compares it with
+ * the checksum of the people table.
+ *
+ * The sum is saved with the execution context in the transaction of each
+ * chunk, and a rolled back chunk restores the context it started with, so the
+ * sum only covers committed items and a restarted step carries on from it.
+ */
+public class WriteChecksumListener implements StepExecutionListener, ItemWriteListener<Person> {
+
+	/**
+	 * The execution context key of the checksum of the items the step wrote. Only
+	 * the steps that write items have it.
+	 */
+	public static final String CHECKSUM = "writeChecksum";
+
+	private StepExecution stepExecution;
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		this.stepExecution = stepExecution;
+		ExecutionContext context = stepExecution.getExecutionContext();
+		if (!context.containsKey(CHECKSUM)) {
+			context.putLong(CHECKSUM, 0);
+		}
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		return null;
+	}
+
+	@Override
+	public void beforeWrite(List<? extends Person> items) {
+	}
+
+	@Override
+	public void afterWrite(List<? extends Person> items) {
+		long checksum = 0;
+		for (Person person : items) {
+			checksum += PersonChecksum.hash(person);
+		}
+		// a rollback replaces the context, so it is looked up for every chunk
+		ExecutionContext context = stepExecution.getExecutionContext();
+		context.putLong(CHECKSUM, context.getLong(CHECKSUM, 0) + checksum);
+	}
+
+	@Override
+	public void onWriteError(Exception exception, List<? extends Person> items) {
+	}
+
+}
@@ -1,7 +1,18 @@
 DROP TABLE people IF EXISTS;
 
+-- people are unique by name, only import.writer.mode=UPSERT skips the ones
+-- already in the table instead of failing
 CREATE TABLE people  (
     person_id BIGINT IDENTITY NOT NULL PRIMARY KEY,
     first_name VARCHAR(20),
+    last_name VARCHAR(20),
+    CONSTRAINT people_name_uk UNIQUE (first_name, last_name)
+);
+
+DROP TABLE people_stage IF EXISTS;
+
+CREATE TABLE people_stage  (
+    load_id CHAR(36) NOT NULL,
+    first_name VARCHAR(20),
     last_name VARCHAR(20)
 );
@@ -0,0 +1,71 @@
+package com.example.batchprocessing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+public class ByteRangePartitionerTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void splitsOnLineBoundariesWithoutLosingOrRepeatingLines() throws Exception {
+		String content = MappedPersonItemReaderTests.people(25);
+		assertSplits(content);
+		// a last line without line feed
+		assertSplits(content + "Last,Doe");
+	}
+
+	@Test
+	public void leavesOutEmptyRangesOfSmallFiles() throws Exception {
+		Path file = Files.write(directory.resolve("people.csv"), "Jill,Doe\nJoe,Doe\n".getBytes());
+		Map<String, ExecutionContext> partitions = new ByteRangePartitioner(new FileSystemResource(file))
+				.partition(8);
+		assertThat(partitions).hasSize(2);
+		for (ExecutionContext context : partitions.values()) {
+			assertThat(context.getLong(ByteRangePartitioner.START_OFFSET))
+					.isLessThan(context.getLong(ByteRangePartitioner.END_OFFSET));
+		}
+	}
+
+	private void assertSplits(String content) throws Exception {
+		Path file = Files.write(directory.resolve("people.csv"), content.getBytes(StandardCharsets.UTF_8));
+		byte[] bytes = Files.readAllBytes(file);
+		List<String> all = MappedPersonItemReaderTests.readAll(MappedPersonItemReaderTests.reader(file),
+				new ExecutionContext());
+		for (int gridSize = 1; gridSize <= 12; gridSize++) {
+			List<ExecutionContext> partitions = new ArrayList<>(
+					new ByteRangePartitioner(new FileSystemResource(file)).partition(gridSize).values());
+			partitions.sort(Comparator.comparingLong(context -> context.getLong(ByteRangePartitioner.START_OFFSET)));
+			assertThat(partitions.size()).isBetween(1, gridSize);
+			List<String> read = new ArrayList<>();
+			long expectedStart = 0;
+			for (ExecutionContext context : partitions) {
+				long start = context.getLong(ByteRangePartitioner.START_OFFSET);
+				long end = context.getLong(ByteRangePartitioner.END_OFFSET);
+				// the ranges follow each other, and each starts a line
+				assertThat(start).isEqualTo(expectedStart);
+				assertThat(start == 0 || bytes[(int) start - 1] == '\n').as("range at %d starts a line", start)
+						.isTrue();
+				read.addAll(MappedPersonItemReaderTests
+						.readAll(MappedPersonItemReaderTests.reader(file, start, end), new ExecutionContext()));
+				expectedStart = end;
+			}
+			assertThat(expectedStart).isEqualTo(bytes.length);
+			assertThat(read).as("grid size %d", gridSize).isEqualTo(all);
+		}
+	}
+
+}
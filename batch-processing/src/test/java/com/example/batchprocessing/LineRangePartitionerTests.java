@@ -0,0 +1,55 @@
+package com.example.batchprocessing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.ByteArrayResource;
+
+public class LineRangePartitionerTests {
+
+	@Test
+	public void splitsIntoContiguousRangesOfAlmostEqualSize() {
+		String content = MappedPersonItemReaderTests.people(25);
+		for (int gridSize = 1; gridSize <= 30; gridSize++) {
+			List<ExecutionContext> partitions = partition(content, gridSize);
+			assertThat(partitions).hasSize(Math.min(gridSize, 25));
+			int expectedStart = 0;
+			for (ExecutionContext context : partitions) {
+				assertThat(context.getInt(LineRangePartitioner.START_LINE)).isEqualTo(expectedStart);
+				assertThat(context.getInt(LineRangePartitioner.ITEM_COUNT)).isBetween(25 / partitions.size(),
+						25 / partitions.size() + 1);
+				expectedStart += context.getInt(LineRangePartitioner.ITEM_COUNT);
+			}
+			assertThat(expectedStart).as("grid size %d", gridSize).isEqualTo(25);
+		}
+	}
+
+	@Test
+	public void countsALastLineWithoutLineFeed() {
+		List<ExecutionContext> partitions = partition("Jill,Doe\nJoe,Doe\nJustin,Doe", 2);
+		assertThat(partitions).extracting(context -> context.getInt(LineRangePartitioner.ITEM_COUNT))
+				.containsExactly(2, 1);
+	}
+
+	@Test
+	public void makesOnePartitionOfAnEmptyInput() {
+		List<ExecutionContext> partitions = partition("", 4);
+		assertThat(partitions).hasSize(1);
+		assertThat(partitions.get(0).getInt(LineRangePartitioner.ITEM_COUNT)).isZero();
+	}
+
+	private static List<ExecutionContext> partition(String content, int gridSize) {
+		Map<String, ExecutionContext> partitions = new LineRangePartitioner(new ByteArrayResource(content.getBytes()))
+				.partition(gridSize);
+		List<ExecutionContext> sorted = new ArrayList<>(partitions.values());
+		sorted.sort(Comparator.comparingInt(context -> context.getInt(LineRangePartitioner.START_LINE)));
+		return sorted;
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.example.batchprocessing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.FileSystemResource;
+
+public class MappedPersonItemReaderTests {
+
+	// windows of 16 bytes, so most lines start in one window and end in the next
+	private static final int WINDOW_SIZE = 16;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void readsTrimmedNamesAndSkipsBlankLines() throws Exception {
+		Path file = write("Jill,Doe\r\n\n  Joe , Doe \nJustin,Doe");
+		assertThat(readAll(reader(file), new ExecutionContext())).containsExactly("Jill Doe", "Joe Doe",
+				"Justin Doe");
+	}
+
+	@Test
+	public void rejectsLinesWithoutTwoFields() throws Exception {
+		MappedPersonItemReader reader = reader(write("Jill,Doe\nJoe\n"));
+		reader.open(new ExecutionContext());
+		try {
+			reader.read();
+			assertThatThrownBy(reader::read).isInstanceOf(FlatFileParseException.class);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void restartsFromTheSavedPosition() throws Exception {
+		Path file = write(people(20));
+		List<String> all = readAll(reader(file), new ExecutionContext());
+		assertThat(all).hasSize(20);
+		// stopping after every item in turn restarts at window boundaries and in the middle of windows
+		for (int stop = 0; stop <= all.size(); stop++) {
+			ExecutionContext context = new ExecutionContext();
+			MappedPersonItemReader reader = reader(file);
+			reader.open(context);
+			List<String> read = new ArrayList<>();
+			for (int i = 0; i < stop; i++) {
+				read.add(name(reader.read()));
+			}
+			reader.update(context);
+			reader.close();
+			read.addAll(readAll(reader(file), context));
+			assertThat(read).as("restarted after %d items", stop).isEqualTo(all);
+		}
+	}
+
+	@Test
+	public void restartsWithinItsByteRange() throws Exception {
+		String content = people(10);
+		Path file = write(content);
+		int start = content.indexOf("Person3");
+		int end = content.indexOf("Person8");
+		ExecutionContext context = new ExecutionContext();
+		MappedPersonItemReader reader = reader(file, start, end);
+		reader.open(context);
+		assertThat(name(reader.read())).isEqualTo("Person3 Doe3");
+		assertThat(name(reader.read())).isEqualTo("Person4 Doe4");
+		reader.update(context);
+		reader.close();
+		assertThat(readAll(reader(file, start, end), context)).containsExactly("Person5 Doe5", "Person6 Doe6",
+				"Person7 Doe7");
+	}
+
+	private Path write(String content) throws IOException {
+		return Files.write(directory.resolve("people.csv"), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// lines of 12 and 14 bytes, which end at varying offsets of the windows
+	static String people(int count) {
+		StringBuilder people = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			people.append("Person").append(i).append(",Doe").append(i).append('\n');
+		}
+		return people.toString();
+	}
+
+	static MappedPersonItemReader reader(Path file) {
+		return reader(file, 0, -1);
+	}
+
+	static MappedPersonItemReader reader(Path file, long startOffset, long endOffset) {
+		MappedPersonItemReader reader = new MappedPersonItemReader(new FileSystemResource(file));
+		reader.setStartOffset(startOffset);
+		reader.setEndOffset(endOffset);
+		reader.setWindowSize(WINDOW_SIZE);
+		return reader;
+	}
+
+	static List<String> readAll(MappedPersonItemReader reader, ExecutionContext context) throws Exception {
+		List<String> names = new ArrayList<>();
+		reader.open(context);
+		try {
+			Person person;
+			while ((person = reader.read()) != null) {
+				names.add(name(person));
+			}
+		} finally {
+			reader.close();
+		}
+		return names;
+	}
+
+	private static String name(Person person) {
+		return person.getFirstName() + " " + person.getLastName();
+	}
+
+}
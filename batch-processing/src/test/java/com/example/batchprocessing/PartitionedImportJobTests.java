@@ -0,0 +1,63 @@
+package com.example.batchprocessing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = { "import.mode=PARTITIONED", "import.partition.grid-size=3",
+		"spring.batch.job.enabled=false", "spring.datasource.generate-unique-name=true" })
+@SpringBatchTest
+public class PartitionedImportJobTests {
+
+	@Autowired
+	private JobLauncherTestUtils jobLauncherTestUtils;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	public void clear() {
+		// people are unique, so each run needs an empty table
+		jdbcTemplate.update("DELETE FROM people");
+	}
+
+	@Test
+	public void importsEveryLineOnceAcrossThePartitions() throws Exception {
+		JobExecution execution = jobLauncherTestUtils.launchJob();
+		assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+		List<StepExecution> workers = execution.getStepExecutions().stream()
+				.filter(step -> step.getStepName().startsWith("workerStep:")).collect(Collectors.toList());
+		assertThat(workers).hasSize(3).extracting(StepExecution::getWriteCount).containsExactlyInAnyOrder(2, 2, 1);
+		assertThat(jdbcTemplate.queryForList("SELECT first_name FROM people", String.class))
+				.containsExactlyInAnyOrder("JILL", "JOE", "JUSTIN", "JANE", "JOHN");
+	}
+
+	@Test
+	public void checksumOfTheWorkersMatchesTheTable() throws Exception {
+		JobExecution execution = jobLauncherTestUtils.launchJob();
+		long written = 0;
+		for (StepExecution step : execution.getStepExecutions()) {
+			// the manager step has no checksum of its own
+			written += step.getExecutionContext().getLong(WriteChecksumListener.CHECKSUM, 0);
+		}
+		long rows = 0;
+		for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT first_name, last_name FROM people")) {
+			rows += PersonChecksum.hash((String) row.get("first_name"), (String) row.get("last_name"));
+		}
+		assertThat(written).isNotZero().isEqualTo(rows);
+	}
+
+}
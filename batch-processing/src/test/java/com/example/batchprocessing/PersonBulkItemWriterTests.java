@@ -0,0 +1,84 @@
+package com.example.batchprocessing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class PersonBulkItemWriterTests {
+
+	private EmbeddedDatabase dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	public void init() {
+		dataSource = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.HSQL)
+				.addScript("schema-all.sql").build();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@AfterEach
+	public void destroy() {
+		dataSource.shutdown();
+	}
+
+	// chunks that fill no statement, exactly some and some with a remainder
+	@ParameterizedTest
+	@CsvSource({ "1, 1", "3, 1", "3, 2", "3, 3", "3, 7", "4, 12", "100, 250" })
+	public void insertsEveryItemOfAChunk(int rowsPerStatement, int chunkSize) throws Exception {
+		new PersonBulkItemWriter(dataSource, rowsPerStatement, null).write(people(0, chunkSize));
+		assertThat(rows()).containsExactlyElementsOf(names(0, chunkSize));
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "1, 1", "3, 2", "3, 7", "100, 250" })
+	public void movesEveryItemOfAChunkThroughTheStagingTable(int rowsPerStatement, int chunkSize) throws Exception {
+		new PersonBulkItemWriter(dataSource, rowsPerStatement, "people_stage").write(people(0, chunkSize));
+		assertThat(rows()).containsExactlyElementsOf(names(0, chunkSize));
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM people_stage", Integer.class)).isZero();
+	}
+
+	@ParameterizedTest
+	@CsvSource({ ", 3", "people_stage, 3" })
+	public void reusesTheWriterForChunksOfDifferentSizes(String stagingTable, int rowsPerStatement)
+			throws Exception {
+		PersonBulkItemWriter writer = new PersonBulkItemWriter(dataSource, rowsPerStatement, stagingTable);
+		writer.write(people(0, 7));
+		writer.write(people(7, 2));
+		writer.write(new ArrayList<>());
+		writer.write(people(9, 6));
+		assertThat(rows()).containsExactlyElementsOf(names(0, 15));
+	}
+
+	private static List<Person> people(int from, int count) {
+		List<Person> people = new ArrayList<>();
+		for (int i = from; i < from + count; i++) {
+			people.add(new Person("First" + i, "Last" + i));
+		}
+		return people;
+	}
+
+	private static List<String> names(int from, int count) {
+		List<String> names = new ArrayList<>();
+		for (Person person : people(from, count)) {
+			names.add(person.getFirstName() + " " + person.getLastName());
+		}
+		return names;
+	}
+
+	private List<String> rows() {
+		return jdbcTemplate.queryForList("SELECT first_name || ' ' || last_name FROM people ORDER BY person_id",
+				String.class);
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.example.batchprocessing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import com.example.batchprocessing.ImportProperties.WriterMode;
+
+/**
+ * Writes people with the writers BatchConfiguration creates for each
+ * import.writer.mode into the people table, with its unique name.
+ */
+public class PersonWriterModesTests {
+
+	private EmbeddedDatabase dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private final ImportProperties properties = new ImportProperties();
+
+	@BeforeEach
+	public void init() {
+		dataSource = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.HSQL)
+				.addScript("schema-all.sql").build();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		properties.getWriter().setRowsPerStatement(2);
+	}
+
+	@AfterEach
+	public void destroy() {
+		dataSource.shutdown();
+	}
+
+	private ItemWriter<Person> writer(WriterMode mode) throws Exception {
+		properties.getWriter().setMode(mode);
+		BatchConfiguration configuration = new BatchConfiguration();
+		configuration.importProperties = properties;
+		if (mode == WriterMode.MULTI_ROW || mode == WriterMode.STAGED) {
+			return configuration.bulkWriter(dataSource);
+		}
+		// initialized as the container does, which is when it finds out it has named parameters
+		JdbcBatchItemWriter<Person> writer = configuration.writer(dataSource);
+		writer.afterPropertiesSet();
+		return writer;
+	}
+
+	@ParameterizedTest
+	@EnumSource(WriterMode.class)
+	public void writesNewPeople(WriterMode mode) throws Exception {
+		writer(mode).write(people("Jill", "Joe", "Justin"));
+		assertThat(names()).containsExactlyInAnyOrder("Jill", "Joe", "Justin");
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = WriterMode.class, names = "UPSERT", mode = EnumSource.Mode.EXCLUDE)
+	public void insertModesFailOnAPersonAlreadyInTheTable(WriterMode mode) throws Exception {
+		ItemWriter<Person> writer = writer(mode);
+		writer.write(people("Jill", "Joe"));
+		assertThatThrownBy(() -> writer.write(people("Justin", "Joe"))).isInstanceOf(DuplicateKeyException.class);
+	}
+
+	@Test
+	public void upsertSkipsPeopleAlreadyInTheTable() throws Exception {
+		ItemWriter<Person> writer = writer(WriterMode.UPSERT);
+		writer.write(people("Jill", "Joe"));
+		writer.write(people("Justin", "Joe", "Jane"));
+		assertThat(names()).containsExactlyInAnyOrder("Jill", "Joe", "Justin", "Jane");
+	}
+
+	@Test
+	public void upsertRerunLeavesTheTableAsItIs() throws Exception {
+		List<Person> people = people("Jill", "Joe", "Justin", "Jane", "John");
+		writer(WriterMode.UPSERT).write(people);
+		List<Long> ids = jdbcTemplate.queryForList("SELECT person_id FROM people ORDER BY person_id", Long.class);
+		writer(WriterMode.UPSERT).write(people);
+		assertThat(jdbcTemplate.queryForList("SELECT person_id FROM people ORDER BY person_id", Long.class))
+				.isEqualTo(ids).hasSize(5);
+	}
+
+	private static List<Person> people(String... firstNames) {
+		return Arrays.stream(firstNames).map(firstName -> new Person(firstName, "Doe")).collect(Collectors.toList());
+	}
+
+	private List<String> names() {
+		return jdbcTemplate.queryForList("SELECT first_name FROM people", String.class);
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.example.batchprocessing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = { "import.writer.mode=UPSERT", "spring.batch.job.enabled=false",
+		"spring.datasource.generate-unique-name=true" })
+@SpringBatchTest
+public class UpsertImportJobTests {
+
+	@Autowired
+	private JobLauncherTestUtils jobLauncherTestUtils;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	public void rerunLeavesTheRowCountUnchanged() throws Exception {
+		JobExecution first = jobLauncherTestUtils.launchJob();
+		assertThat(first.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+		assertThat(count()).isEqualTo(5);
+
+		JobExecution second = jobLauncherTestUtils.launchJob();
+		assertThat(second.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+		assertThat(second.getStepExecutions().iterator().next().getWriteCount()).isEqualTo(5);
+		assertThat(count()).isEqualTo(5);
+	}
+
+	private int count() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM people", Integer.class);
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.example.batchprocessing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+public class WriteChecksumListenerTests {
+
+	private final Person jill = new Person("JILL", "DOE");
+
+	private final Person joe = new Person("JOE", "DOE");
+
+	private final Person justin = new Person("JUSTIN", "DOE");
+
+	@Test
+	public void sumsTheHashesOfTheWrittenItemsInAnyOrder() {
+		StepExecution forward = run(Arrays.asList(jill, joe), Arrays.asList(justin));
+		StepExecution backward = run(Arrays.asList(justin, joe), Arrays.asList(jill));
+		long expected = PersonChecksum.hash("JILL", "DOE") + PersonChecksum.hash("JOE", "DOE")
+				+ PersonChecksum.hash("JUSTIN", "DOE");
+		assertThat(checksum(forward)).isEqualTo(expected).isEqualTo(checksum(backward));
+	}
+
+	@Test
+	public void tellsApartPeopleWithSwappedNames() {
+		assertThat(PersonChecksum.hash("JILL", "DOE")).isNotEqualTo(PersonChecksum.hash("DOE", "JILL"));
+		assertThat(PersonChecksum.hash(jill)).isEqualTo(PersonChecksum.hash("JILL", "DOE"));
+	}
+
+	@Test
+	public void leavesOutChunksThatRolledBack() {
+		StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+		WriteChecksumListener listener = new WriteChecksumListener();
+		listener.beforeStep(stepExecution);
+		listener.afterWrite(Arrays.asList(jill));
+		// the step restores the context the chunk started with
+		ExecutionContext committed = new ExecutionContext(stepExecution.getExecutionContext());
+		listener.afterWrite(Arrays.asList(joe));
+		stepExecution.setExecutionContext(committed);
+		listener.afterWrite(Arrays.asList(justin));
+		assertThat(checksum(stepExecution))
+				.isEqualTo(PersonChecksum.hash("JILL", "DOE") + PersonChecksum.hash("JUSTIN", "DOE"));
+	}
+
+	@Test
+	public void carriesOnFromTheChecksumOfARestartedStep() {
+		StepExecution first = run(Arrays.asList(jill, joe));
+		StepExecution restart = MetaDataInstanceFactory.createStepExecution();
+		restart.setExecutionContext(new ExecutionContext(first.getExecutionContext()));
+		WriteChecksumListener listener = new WriteChecksumListener();
+		listener.beforeStep(restart);
+		listener.afterWrite(Arrays.asList(justin));
+		assertThat(checksum(restart)).isEqualTo(checksum(run(Arrays.asList(jill, joe, justin))));
+	}
+
+	@SafeVarargs
+	private static StepExecution run(List<Person>... chunks) {
+		StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+		WriteChecksumListener listener = new WriteChecksumListener();
+		listener.beforeStep(stepExecution);
+		for (List<Person> chunk : chunks) {
+			listener.afterWrite(chunk);
+		}
+		return stepExecution;
+	}
+
+	private static long checksum(StepExecution stepExecution) {
+		return stepExecution.getExecutionContext().getLong(WriteChecksumListener.CHECKSUM);
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.example.caching;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Compares the books cache backends on the hit path of
+ * {@link Cache#get(Object, java.util.concurrent.Callable)}, the call the
+ * cache proxy makes for getByIsbn: a ConcurrentMapCache, the Caffeine first
+ * level alone (a TieredCache without second level) and the off heap store,
+ * which also decodes the book on every hit.
+ *
+ * Every backend holds all keys, so the key distribution changes which entries
+ * are contended and how well they fit in the CPU caches rather than the hit
+ * rate. Each benchmark runs with 1, 4 and as many threads as there are
+ * processors; the sample time mode reports p99. Run with {@code -prof gc} for
+ * the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CacheBackendBenchmark {
+
+	@Param({ "concurrentMap", "caffeine", "offHeap" })
+	public String backend;
+
+	@Param({ "uniform", "zipfian" })
+	public String distribution;
+
+	@Param({ "100000" })
+	public int keyCount;
+
+	private Cache cache;
+
+	private OffHeapStore store;
+
+	@State(Scope.Thread)
+	public static class Keys {
+
+		private KeySequence sequence;
+
+		@Setup
+		public void draw(CacheBackendBenchmark benchmark, ThreadParams threads) {
+			sequence = new KeySequence(benchmark.distribution, benchmark.keyCount, threads.getThreadIndex());
+		}
+
+	}
+
+	@Setup(Level.Trial)
+	public void fillCache() throws IOException {
+		switch (backend) {
+		case "concurrentMap":
+			cache = new ConcurrentMapCache("books");
+			break;
+		case "caffeine":
+			cache = new TieredCache("books", Caffeine.newBuilder().maximumSize(keyCount).build(), null);
+			break;
+		case "offHeap":
+			store = new OffHeapStore(8, 4 * 1024 * 1024, null);
+			cache = new OffHeapCache("books", store);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown backend " + backend);
+		}
+		for (String isbn : KeySequence.isbns(keyCount)) {
+			cache.put(isbn, new Book(isbn, "Some book"));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void closeStore() throws IOException {
+		if (store != null) {
+			store.close();
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Book oneThread(Keys keys) {
+		return get(keys.sequence.next());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Book fourThreads(Keys keys) {
+		return get(keys.sequence.next());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Book allThreads(Keys keys) {
+		return get(keys.sequence.next());
+	}
+
+	// the loader only runs if a backend lost an entry
+	private Book get(String isbn) {
+		return cache.get(isbn, () -> new Book(isbn, "Some book"));
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.example.caching;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Measures what a cache hit of getByIsbn costs through the {@code @Cacheable}
+ * proxy, against the same lookup straight in the cache and in a plain
+ * ConcurrentHashMap.
+ *
+ * The tiered setup is the application's: the TieredCacheManager with the
+ * coalescing and refresh-ahead decorators and synchronized operations. The
+ * concurrentMap setup is Spring's default ConcurrentMapCacheManager. All books
+ * are cached before the measurement, so the backend is never called. Run with
+ * {@code -prof gc} for the allocation per operation, and with {@code -t} for
+ * more threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CacheProxyBenchmark {
+
+	@Param({ "tiered", "concurrentMap" })
+	public String cacheManager;
+
+	@Param({ "uniform", "zipfian" })
+	public String distribution;
+
+	@Param({ "1000" })
+	public int keyCount;
+
+	private AnnotationConfigApplicationContext context;
+
+	private BookRepository repository;
+
+	private Cache cache;
+
+	private final Map<String, Book> map = new ConcurrentHashMap<>();
+
+	@State(Scope.Thread)
+	public static class Keys {
+
+		private KeySequence sequence;
+
+		@Setup
+		public void draw(CacheProxyBenchmark benchmark, ThreadParams threads) {
+			sequence = new KeySequence(benchmark.distribution, benchmark.keyCount, threads.getThreadIndex());
+		}
+
+	}
+
+	@Setup(Level.Trial)
+	public void startContext() {
+		context = new AnnotationConfigApplicationContext(
+				"tiered".equals(cacheManager) ? TieredConfiguration.class : ConcurrentMapConfiguration.class);
+		repository = context.getBean(BookRepository.class);
+		cache = context.getBean(CacheManager.class).getCache("books");
+		for (String isbn : KeySequence.isbns(keyCount)) {
+			Book book = new Book(isbn, "Some book");
+			cache.put(isbn, book);
+			map.put(isbn, book);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void closeContext() {
+		context.close();
+	}
+
+	@Benchmark
+	public Book proxy(Keys keys) {
+		return repository.getByIsbn(keys.sequence.next());
+	}
+
+	@Benchmark
+	public Book cache(Keys keys) {
+		return cache.get(keys.sequence.next(), Book.class);
+	}
+
+	@Benchmark
+	public Book directMap(Keys keys) {
+		return map.get(keys.sequence.next());
+	}
+
+	@EnableCaching
+	@Configuration
+	@Import({ CacheConfiguration.class, SimpleBookRepository.class })
+	static class TieredConfiguration {
+
+		// the limits of application.properties, without a second level
+		@Bean
+		public CachingProperties cachingProperties() {
+			CachingProperties properties = new CachingProperties();
+			CachingProperties.Spec books = new CachingProperties.Spec();
+			books.setExpireAfterWrite(Duration.ofMinutes(10));
+			books.setRefreshAhead(Duration.ofMinutes(1));
+			books.setMaxStaleness(Duration.ofMinutes(5));
+			books.setNegativeMaximumSize(1000);
+			books.setNegativeTtl(Duration.ofSeconds(30));
+			properties.getCaches().put("books", books);
+			return properties;
+		}
+
+	}
+
+	@EnableCaching
+	@Configuration
+	@Import(SimpleBookRepository.class)
+	static class ConcurrentMapConfiguration {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public CachingProperties cachingProperties() {
+			return new CachingProperties();
+		}
+
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.example.caching;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A precomputed, repeating sequence of ISBNs drawn from isbn-0 to isbn-(n-1),
+ * either uniformly or from a Zipfian distribution where the key of rank k is
+ * drawn with a probability proportional to 1 / k^0.99, as in YCSB. Drawing
+ * ahead of the measurement keeps the random number generator out of it.
+ */
+final class KeySequence {
+
+	private static final int LENGTH = 1 << 16;
+
+	private final String[] keys;
+
+	private int next;
+
+	KeySequence(String distribution, int keyCount, long seed) {
+		String[] isbns = isbns(keyCount);
+		SplittableRandom random = new SplittableRandom(seed);
+		keys = new String[LENGTH];
+		if ("uniform".equals(distribution)) {
+			for (int i = 0; i < LENGTH; i++) {
+				keys[i] = isbns[random.nextInt(keyCount)];
+			}
+		} else if ("zipfian".equals(distribution)) {
+			double[] cumulative = new double[keyCount];
+			double sum = 0;
+			for (int k = 0; k < keyCount; k++) {
+				sum += 1 / Math.pow(k + 1, 0.99);
+				cumulative[k] = sum;
+			}
+			for (int i = 0; i < LENGTH; i++) {
+				int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+				keys[i] = isbns[Math.min(keyCount - 1, rank < 0 ? -rank - 1 : rank)];
+			}
+		} else {
+			throw new IllegalArgumentException("Unknown distribution " + distribution);
+		}
+	}
+
+	static String[] isbns(int keyCount) {
+		String[] isbns = new String[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			isbns[i] = "isbn-" + i;
+		}
+		return isbns;
+	}
+
+	String next() {
+		next = (next + 1) & (LENGTH - 1);
+		return keys[next];
+	}
+
+}
@@ -1,5 +1,7 @@
 package com.example.caching;
 
+import java.util.Arrays;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -25,6 +27,13 @@ public class AppRunner implements CommandLineRunner {
 		logger.info("isbn-4567 -->" + bookRepository.getByIsbn("isbn-4567"));
 		logger.info("isbn-1234 -->" + bookRepository.getByIsbn("isbn-1234"));
 		logger.info("isbn-1234 -->" + bookRepository.getByIsbn("isbn-1234"));
+		logger.info(".... Fetching a page of books");
+		logger.info("isbn-1234, isbn-4567, isbn-8910, isbn-1112 -->"
+				+ bookRepository.getByIsbns(Arrays.asList("isbn-1234", "isbn-4567", "isbn-8910", "isbn-1112")));
+		logger.info("isbn-8910 -->" + bookRepository.getByIsbn("isbn-8910"));
+		logger.info(".... Fetching missing books");
+		logger.info("isbn-0000 -->" + bookRepository.getByIsbn("isbn-0000"));
+		logger.info("isbn-0000 -->" + bookRepository.getByIsbn("isbn-0000"));
 	}
 
 }
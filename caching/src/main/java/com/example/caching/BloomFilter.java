@@ -0,0 +1,68 @@
+package com.example.caching;
+
+import java.util.Collection;
+
+/**
+ * An immutable Bloom filter of strings. {@link #mightContain(String)} is true
+ * for every string the filter was built from, and false for all others but a
+ * fraction close to the false positive rate it was sized for.
+ *
+ * The bit positions are derived from one 64-bit hash per string, split into
+ * two halves that are combined as h1 + i * h2 (Kirsch and Mitzenmacher), so a
+ * lookup hashes the string once whatever the number of hash functions.
+ */
+final class BloomFilter {
+
+	private final long[] bits;
+
+	private final long bitCount;
+
+	private final int hashCount;
+
+	private BloomFilter(long bitCount, int hashCount) {
+		this.bits = new long[(int) ((bitCount + 63) >>> 6)];
+		this.bitCount = bitCount;
+		this.hashCount = hashCount;
+	}
+
+	/**
+	 * Builds a filter sized for the given strings and false positive rate.
+	 */
+	static BloomFilter of(Collection<String> values, double falsePositiveRate) {
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+		}
+		long n = Math.max(1, values.size());
+		long bitCount = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+		int hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+		BloomFilter filter = new BloomFilter(bitCount, hashCount);
+		for (String value : values) {
+			filter.add(value);
+		}
+		return filter;
+	}
+
+	boolean mightContain(String value) {
+		long hash = KeyHash.hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void add(String value) {
+		long hash = KeyHash.hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+}
@@ -0,0 +1,248 @@
+package com.example.caching;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NullValue;
+
+import com.example.caching.CachingProperties.Warmup;
+
+/**
+ * Fills the books cache before the application starts serving, so the first
+ * requests after a restart are not all misses.
+ *
+ * Once all singletons exist, and so before the runners and the
+ * ApplicationReadyEvent, the warmer loads the last snapshot in parallel and
+ * then prefetches the ISBNs listed in the prefetch file that are still
+ * missing, in batches through getByIsbns. While the application runs it
+ * snapshots the hottest entries of the first level every interval and at
+ * shutdown, writing a temporary file that then replaces the snapshot, so a
+ * crash never leaves a half written one. Every entry is written with the time
+ * it was written to the cache, and entries older than the cache's
+ * expire-after-write are not loaded. Loaded entries start a new
+ * expire-after-write, as Caffeine has no way to insert them with what was left
+ * of theirs, so a value lives at most twice that long across restarts.
+ */
+public class BookCacheWarmer implements SmartInitializingSingleton, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(BookCacheWarmer.class);
+
+	private static final String CACHE_NAME = "books";
+
+	// "BOK1"
+	private static final int MAGIC = 0x424f4b31;
+
+	private static final int LOAD_BATCH_SIZE = 1000;
+
+	private final CacheManager cacheManager;
+
+	private final BookRepository bookRepository;
+
+	private final Warmup properties;
+
+	private final Duration timeToLive;
+
+	private ScheduledExecutorService scheduler;
+
+	public BookCacheWarmer(CacheManager cacheManager, BookRepository bookRepository, CachingProperties properties) {
+		this.cacheManager = cacheManager;
+		this.bookRepository = bookRepository;
+		this.properties = properties.getWarmup();
+		this.timeToLive = properties.getSpec(CACHE_NAME).getExpireAfterWrite();
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(properties.getThreads());
+		try {
+			int loaded = properties.getSnapshot() != null ? loadSnapshot(pool) : 0;
+			int prefetched = properties.getPrefetch() != null ? prefetch(pool) : 0;
+			logger.info("Warmed up the {} cache with {} entries from the snapshot and {} prefetched in {} ms",
+					CACHE_NAME, loaded, prefetched, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} finally {
+			pool.shutdown();
+		}
+		if (properties.getSnapshot() != null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "cache-snapshot");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long interval = properties.getInterval().toMillis();
+			scheduler.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			snapshotQuietly();
+		}
+	}
+
+	/**
+	 * Writes the hottest entries of the first level to the snapshot file.
+	 *
+	 * @return the number of entries written
+	 */
+	public int snapshot() throws IOException {
+		TieredCache cache = cache();
+		Map<Object, Object> hottest = cache.hottest(properties.getHottest());
+		List<Map.Entry<Object, Object>> entries = hottest.entrySet().stream()
+				.filter(entry -> entry.getKey() instanceof String).collect(Collectors.toList());
+		Path target = properties.getSnapshot().toPath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			long now = System.currentTimeMillis();
+			out.writeInt(MAGIC);
+			out.writeLong(now);
+			out.writeInt(entries.size());
+			for (Map.Entry<Object, Object> entry : entries) {
+				byte[] value = BookCodec.encode(entry.getValue());
+				long age = cache.ageOf(entry.getKey());
+				out.writeUTF((String) entry.getKey());
+				out.writeLong(age < 0 ? now : now - TimeUnit.NANOSECONDS.toMillis(age));
+				out.writeInt(value.length);
+				out.write(value);
+			}
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return entries.size();
+	}
+
+	private void snapshotQuietly() {
+		try {
+			int written = snapshot();
+			logger.debug("Wrote {} entries of the {} cache to {}", written, CACHE_NAME, properties.getSnapshot());
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Failed to snapshot the " + CACHE_NAME + " cache to " + properties.getSnapshot(), e);
+		}
+	}
+
+	// reads the snapshot sequentially and decodes and stores it in batches on the pool
+	private int loadSnapshot(ExecutorService pool) {
+		Path path = properties.getSnapshot().toPath();
+		if (!Files.exists(path)) {
+			return 0;
+		}
+		TieredCache cache = cache();
+		List<Future<?>> batches = new ArrayList<>();
+		int loaded = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC) {
+				logger.warn("Ignoring {}, it is not a snapshot of the {} cache", path, CACHE_NAME);
+				return 0;
+			}
+			long now = System.currentTimeMillis();
+			long age = now - in.readLong();
+			if (timeToLive != null && age > timeToLive.toMillis()) {
+				logger.info("Ignoring the snapshot of the {} cache, it is {} ms old", CACHE_NAME, age);
+				return 0;
+			}
+			int count = in.readInt();
+			List<String> keys = new ArrayList<>(LOAD_BATCH_SIZE);
+			List<byte[]> values = new ArrayList<>(LOAD_BATCH_SIZE);
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				long writtenAt = in.readLong();
+				byte[] value = new byte[in.readInt()];
+				in.readFully(value);
+				// entries that expired since they were written stay out
+				if (timeToLive == null || now - writtenAt < timeToLive.toMillis()) {
+					keys.add(key);
+					values.add(value);
+					loaded++;
+				}
+				if (keys.size() == LOAD_BATCH_SIZE || (i == count - 1 && !keys.isEmpty())) {
+					List<String> batchKeys = keys;
+					List<byte[]> batchValues = values;
+					batches.add(pool.submit(() -> store(cache, batchKeys, batchValues)));
+					keys = new ArrayList<>(LOAD_BATCH_SIZE);
+					values = new ArrayList<>(LOAD_BATCH_SIZE);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Failed to load the snapshot of the " + CACHE_NAME + " cache from " + path, e);
+			return 0;
+		}
+		await(batches);
+		return loaded;
+	}
+
+	private static void store(TieredCache cache, List<String> keys, List<byte[]> values) {
+		Map<Object, Object> entries = new HashMap<>();
+		for (int i = 0; i < keys.size(); i++) {
+			Object value = BookCodec.decode(values.get(i));
+			entries.put(keys.get(i), value == NullValue.INSTANCE ? null : value);
+		}
+		cache.putAll(entries);
+	}
+
+	// loads the listed ISBNs that are not cached yet, a batch per getByIsbns call
+	private int prefetch(ExecutorService pool) {
+		List<String> isbns;
+		try {
+			isbns = Files.readAllLines(properties.getPrefetch().toPath(), StandardCharsets.UTF_8).stream()
+					.map(String::trim).filter(isbn -> !isbn.isEmpty()).distinct().collect(Collectors.toList());
+		} catch (IOException e) {
+			logger.warn("Failed to read the ISBNs to prefetch from " + properties.getPrefetch(), e);
+			return 0;
+		}
+		isbns.removeAll(cache().getAllPresent(isbns).keySet());
+		List<Future<?>> batches = new ArrayList<>();
+		for (int from = 0; from < isbns.size(); from += properties.getPrefetchBatchSize()) {
+			List<String> batch = isbns.subList(from, Math.min(isbns.size(), from + properties.getPrefetchBatchSize()));
+			batches.add(pool.submit(() -> bookRepository.getByIsbns(batch)));
+		}
+		await(batches);
+		return isbns.size();
+	}
+
+	private static void await(List<Future<?>> futures) {
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				logger.warn("Failed to warm up the " + CACHE_NAME + " cache", e.getCause());
+			}
+		}
+	}
+
+	private TieredCache cache() {
+		TieredCache cache = DelegatingCache.unwrap(cacheManager.getCache(CACHE_NAME), TieredCache.class);
+		if (cache == null) {
+			throw new IllegalStateException("The " + CACHE_NAME + " cache is not a TieredCache");
+		}
+		return cache;
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.example.caching;
+
+import java.nio.ByteBuffer;
+
+import org.springframework.cache.support.NullValue;
+
+/**
+ * Serializes the store values of the books cache, a Book or the NullValue of
+ * a cached null, into a compact byte[]: a type byte followed by the ISBN and
+ * the title as length prefixed chars.
+ */
+final class BookCodec {
+
+	private static final byte NULL = 0;
+
+	private static final byte BOOK = 1;
+
+	private BookCodec() {
+	}
+
+	static byte[] encode(Object value) {
+		if (value == NullValue.INSTANCE) {
+			return new byte[] { NULL };
+		}
+		if (!(value instanceof Book)) {
+			throw new IllegalArgumentException("Cannot store " + value + " off heap, only books are supported");
+		}
+		Book book = (Book) value;
+		ByteBuffer buffer = ByteBuffer.allocate(1 + size(book.getIsbn()) + size(book.getTitle()));
+		buffer.put(BOOK);
+		putString(buffer, book.getIsbn());
+		putString(buffer, book.getTitle());
+		return buffer.array();
+	}
+
+	static Object decode(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (buffer.get() == NULL) {
+			return NullValue.INSTANCE;
+		}
+		String isbn = getString(buffer);
+		String title = getString(buffer);
+		return new Book(isbn, title);
+	}
+
+	private static int size(String value) {
+		return 4 + (value == null ? 0 : 2 * value.length());
+	}
+
+	private static void putString(ByteBuffer buffer, String value) {
+		if (value == null) {
+			buffer.putInt(-1);
+			return;
+		}
+		buffer.putInt(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			buffer.putChar(value.charAt(i));
+		}
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		char[] chars = new char[length];
+		buffer.asCharBuffer().get(chars);
+		buffer.position(buffer.position() + 2 * length);
+		return new String(chars);
+	}
+
+}
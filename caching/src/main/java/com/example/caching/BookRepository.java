@@ -1,7 +1,20 @@
 package com.example.caching;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface BookRepository {
 
+	/**
+	 * Returns the book with the given ISBN, or null if there is none.
+	 */
 	Book getByIsbn(String isbn);
 
+	/**
+	 * Returns the books with the given ISBNs, in the order of the ISBNs, leaving
+	 * out the ISBNs without a book. Books that are not cached are fetched with a
+	 * single backend call.
+	 */
+	Map<String, Book> getByIsbns(Collection<String> isbns);
+
 }
@@ -0,0 +1,44 @@
+package com.example.caching;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.cache.Cache;
+
+/**
+ * A cache that reads and writes many entries at once. The maps hold the values
+ * as the caller sees them, a key mapped to null is a cached null.
+ */
+public interface BulkCache extends Cache {
+
+	/**
+	 * Returns the entries the cache holds for the given keys.
+	 */
+	Map<Object, Object> getAllPresent(Collection<?> keys);
+
+	/**
+	 * Stores all the given entries.
+	 */
+	void putAll(Map<?, ?> entries);
+
+	/**
+	 * Returns the entries for the given keys, loading all missing ones with a
+	 * single call of the loader and storing what it returns. Keys the loader
+	 * returns no entry for are left out.
+	 */
+	default Map<Object, Object> getAll(Collection<?> keys, Function<Set<Object>, Map<?, ?>> loader) {
+		Map<Object, Object> result = getAllPresent(keys);
+		Set<Object> missing = new LinkedHashSet<>(keys);
+		missing.removeAll(result.keySet());
+		if (!missing.isEmpty()) {
+			Map<?, ?> loaded = loader.apply(missing);
+			putAll(loaded);
+			result.putAll(loaded);
+		}
+		return result;
+	}
+
+}
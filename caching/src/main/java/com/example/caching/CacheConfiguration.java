@@ -0,0 +1,121 @@
+package com.example.caching;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Replaces the default unbounded ConcurrentMapCacheManager with the
+ * TieredCacheManager, and publishes the hit, miss and eviction statistics of
+ * each first level as cache.* metrics. {@code @Cacheable} methods are switched
+ * to synchronized loading so that their misses are coalesced.
+ */
+@Configuration
+public class CacheConfiguration {
+
+	@Bean
+	public CacheManager cacheManager(CachingProperties properties,
+			ObjectProvider<SecondLevelCacheFactory> secondLevelFactory) {
+		return new TieredCacheManager(properties, secondLevelFactory.getIfAvailable(),
+				cacheRefreshExecutor(properties));
+	}
+
+	/**
+	 * Runs the background reloads of refresh-ahead caches. The queue is bounded
+	 * and reloads it rejects are dropped, so a burst of refreshes cannot pile up.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor cacheRefreshExecutor(CachingProperties properties) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(properties.getRefresh().getThreads());
+		executor.setMaxPoolSize(properties.getRefresh().getThreads());
+		executor.setQueueCapacity(properties.getRefresh().getQueueCapacity());
+		executor.setThreadNamePrefix("cache-refresh-");
+		executor.setDaemon(true);
+		return executor;
+	}
+
+	@Bean
+	@ConditionalOnProperty("caching.off-heap.enabled")
+	public OffHeapCacheFactory offHeapCacheFactory(CachingProperties properties) {
+		return new OffHeapCacheFactory(properties.getOffHeap());
+	}
+
+	@Bean
+	@ConditionalOnProperty("caching.warmup.enabled")
+	public BookCacheWarmer bookCacheWarmer(CacheManager cacheManager, BookRepository bookRepository,
+			CachingProperties properties) {
+		return new BookCacheWarmer(cacheManager, bookRepository, properties);
+	}
+
+	@Bean
+	public static SynchronizedCacheableOperationSource.PostProcessor synchronizedCacheableOperationSource() {
+		return new SynchronizedCacheableOperationSource.PostProcessor();
+	}
+
+	/**
+	 * Binds the metrics of a cache and of the decorators around it.
+	 */
+	@Bean
+	public CacheMeterBinderProvider<Cache> tieredCacheMeterBinderProvider() {
+		return (cache, tags) -> registry -> {
+			String name = cache.getName();
+			for (Cache level = cache; level != null; level = level instanceof DelegatingCache
+					? ((DelegatingCache) level).getDelegate()
+					: null) {
+				if (level instanceof TieredCache) {
+					TieredCache tiered = (TieredCache) level;
+					new CaffeineCacheMetrics(tiered.getNativeCache(), name, tags).bindTo(registry);
+					if (tiered.getNegatives() != null) {
+						new CaffeineCacheMetrics(tiered.getNegatives(), name + ".negative", tags).bindTo(registry);
+					}
+					if (tiered.getSecondLevel() instanceof OffHeapCache) {
+						bindOffHeapMetrics((OffHeapCache) tiered.getSecondLevel(), name, tags, registry);
+					}
+				} else if (level instanceof CoalescingCache) {
+					FunctionCounter.builder("cache.loads.coalesced", (CoalescingCache) level,
+							CoalescingCache::getCoalescedCount).tags(tags).tag("cache", name)
+							.description("Misses that waited for a load of the same key by another caller")
+							.register(registry);
+				} else if (level instanceof RefreshAheadCache) {
+					RefreshAheadCache refreshAhead = (RefreshAheadCache) level;
+					FunctionCounter.builder("cache.refreshes", refreshAhead, RefreshAheadCache::getRefreshCount)
+							.tags(tags).tag("cache", name).tag("result", "success")
+							.description("Entries reloaded in the background").register(registry);
+					FunctionCounter
+							.builder("cache.refreshes", refreshAhead, RefreshAheadCache::getDroppedRefreshCount)
+							.tags(tags).tag("cache", name).tag("result", "dropped")
+							.description("Entries reloaded in the background").register(registry);
+					FunctionCounter.builder("cache.gets.stale", refreshAhead, RefreshAheadCache::getStaleHitCount)
+							.tags(tags).tag("cache", name).description("Expired entries served while reloading")
+							.register(registry);
+				}
+			}
+		};
+	}
+
+	private static void bindOffHeapMetrics(OffHeapCache cache, String name, Iterable<Tag> tags,
+			MeterRegistry registry) {
+		FunctionCounter.builder("cache.offheap.gets", cache, OffHeapCache::getHitCount).tags(tags).tag("cache", name)
+				.tag("result", "hit").description("Lookups in the off heap second level").register(registry);
+		FunctionCounter.builder("cache.offheap.gets", cache, OffHeapCache::getMissCount).tags(tags).tag("cache", name)
+				.tag("result", "miss").description("Lookups in the off heap second level").register(registry);
+		Gauge.builder("cache.offheap.size", cache.getNativeCache(), OffHeapStore::size).tags(tags).tag("cache", name)
+				.description("Entries in the off heap second level").register(registry);
+		Gauge.builder("cache.offheap.capacity", cache.getNativeCache(), OffHeapStore::capacity).tags(tags)
+				.tag("cache", name).baseUnit("bytes").description("Memory held by the off heap second level")
+				.register(registry);
+	}
+
+}
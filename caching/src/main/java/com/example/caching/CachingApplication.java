@@ -2,6 +2,7 @@ package com.example.caching;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 
 @SpringBootApplication
@@ -13,6 +14,7 @@ import org.springframework.cache.annotation.EnableCaching;
  *                the caching behavior accordingly.
  */
 @EnableCaching
+@EnableConfigurationProperties(CachingProperties.class)
 public class CachingApplication {
 
 	public static void main(String[] args) {
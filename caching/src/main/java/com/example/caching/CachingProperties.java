@@ -0,0 +1,440 @@
+package com.example.caching;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Limits of the caches created by the TieredCacheManager, bound from the
+ * caching.* properties.
+ */
+@ConfigurationProperties("caching")
+public class CachingProperties {
+
+	/**
+	 * Limits of caches that have no entry in caches.
+	 */
+	private final Spec defaults = new Spec();
+
+	/**
+	 * Limits per cache name. These caches are created at startup.
+	 */
+	private final Map<String, Spec> caches = new LinkedHashMap<>();
+
+	/**
+	 * How long a cache miss waits for the same key being loaded by another
+	 * caller before it fails, unless its cache sets a load-timeout.
+	 */
+	private Duration loadTimeout = Duration.ofSeconds(30);
+
+	private final Refresh refresh = new Refresh();
+
+	private final OffHeap offHeap = new OffHeap();
+
+	private final Warmup warmup = new Warmup();
+
+	private final Catalog catalog = new Catalog();
+
+	public Spec getDefaults() {
+		return defaults;
+	}
+
+	public Map<String, Spec> getCaches() {
+		return caches;
+	}
+
+	public Duration getLoadTimeout() {
+		return loadTimeout;
+	}
+
+	public void setLoadTimeout(Duration loadTimeout) {
+		this.loadTimeout = loadTimeout;
+	}
+
+	public Refresh getRefresh() {
+		return refresh;
+	}
+
+	public OffHeap getOffHeap() {
+		return offHeap;
+	}
+
+	public Warmup getWarmup() {
+		return warmup;
+	}
+
+	public Catalog getCatalog() {
+		return catalog;
+	}
+
+	public Spec getSpec(String name) {
+		return caches.getOrDefault(name, defaults);
+	}
+
+	public Duration getLoadTimeout(String name) {
+		Duration timeout = getSpec(name).getLoadTimeout();
+		return timeout != null ? timeout : loadTimeout;
+	}
+
+	public static class Spec {
+
+		/**
+		 * Maximum number of entries held on heap.
+		 */
+		private long maximumSize = 10_000;
+
+		/**
+		 * Time after which an entry expires once written, none if not set.
+		 */
+		private Duration expireAfterWrite;
+
+		/**
+		 * Time after which an entry expires once last read or written, none if not
+		 * set.
+		 */
+		private Duration expireAfterAccess;
+
+		/**
+		 * How long before expire-after-write an accessed entry is reloaded in the
+		 * background, none if not set.
+		 */
+		private Duration refreshAhead;
+
+		/**
+		 * How long after expire-after-write an entry is still served while it is
+		 * reloaded in the background.
+		 */
+		private Duration maxStaleness = Duration.ZERO;
+
+		/**
+		 * Whether entries are also stored in the second level cache, if there is
+		 * one.
+		 */
+		private boolean secondLevel = false;
+
+		/**
+		 * Maximum number of keys cached as null, apart from the values. Nulls are
+		 * cached like values if 0.
+		 */
+		private long negativeMaximumSize = 0;
+
+		/**
+		 * Time after which a key cached as null expires, none if not set.
+		 */
+		private Duration negativeTtl;
+
+		/**
+		 * How long a cache miss waits for the same key being loaded by another
+		 * caller before it fails, caching.load-timeout if not set.
+		 */
+		private Duration loadTimeout;
+
+		public long getMaximumSize() {
+			return maximumSize;
+		}
+
+		public void setMaximumSize(long maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+
+		public Duration getExpireAfterWrite() {
+			return expireAfterWrite;
+		}
+
+		public void setExpireAfterWrite(Duration expireAfterWrite) {
+			this.expireAfterWrite = expireAfterWrite;
+		}
+
+		public Duration getExpireAfterAccess() {
+			return expireAfterAccess;
+		}
+
+		public void setExpireAfterAccess(Duration expireAfterAccess) {
+			this.expireAfterAccess = expireAfterAccess;
+		}
+
+		public Duration getRefreshAhead() {
+			return refreshAhead;
+		}
+
+		public void setRefreshAhead(Duration refreshAhead) {
+			this.refreshAhead = refreshAhead;
+		}
+
+		public Duration getMaxStaleness() {
+			return maxStaleness;
+		}
+
+		public void setMaxStaleness(Duration maxStaleness) {
+			this.maxStaleness = maxStaleness;
+		}
+
+		public boolean isSecondLevel() {
+			return secondLevel;
+		}
+
+		public void setSecondLevel(boolean secondLevel) {
+			this.secondLevel = secondLevel;
+		}
+
+		public long getNegativeMaximumSize() {
+			return negativeMaximumSize;
+		}
+
+		public void setNegativeMaximumSize(long negativeMaximumSize) {
+			this.negativeMaximumSize = negativeMaximumSize;
+		}
+
+		public Duration getNegativeTtl() {
+			return negativeTtl;
+		}
+
+		public void setNegativeTtl(Duration negativeTtl) {
+			this.negativeTtl = negativeTtl;
+		}
+
+		public Duration getLoadTimeout() {
+			return loadTimeout;
+		}
+
+		public void setLoadTimeout(Duration loadTimeout) {
+			this.loadTimeout = loadTimeout;
+		}
+
+	}
+
+	public static class Refresh {
+
+		/**
+		 * Number of threads reloading entries in the background.
+		 */
+		private int threads = 2;
+
+		/**
+		 * Number of reloads that may wait for a thread, further ones are dropped.
+		 */
+		private int queueCapacity = 1000;
+
+		public int getThreads() {
+			return threads;
+		}
+
+		public void setThreads(int threads) {
+			this.threads = threads;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+	}
+
+	public static class OffHeap {
+
+		/**
+		 * Whether caches with second-level set get an off heap second level.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Number of slabs per cache, the oldest slab is evicted when all are full.
+		 */
+		private int slabCount = 8;
+
+		/**
+		 * Size of each slab, less than 2GB.
+		 */
+		private DataSize slabSize = DataSize.ofMegabytes(16);
+
+		/**
+		 * Directory to map the slabs from, so entries survive restarts. Direct
+		 * memory is used if not set.
+		 */
+		private File directory;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getSlabCount() {
+			return slabCount;
+		}
+
+		public void setSlabCount(int slabCount) {
+			this.slabCount = slabCount;
+		}
+
+		public DataSize getSlabSize() {
+			return slabSize;
+		}
+
+		public void setSlabSize(DataSize slabSize) {
+			this.slabSize = slabSize;
+		}
+
+		public File getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(File directory) {
+			this.directory = directory;
+		}
+
+	}
+
+	public static class Warmup {
+
+		/**
+		 * Whether the books cache is warmed up at startup.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * File the hottest entries are saved to and loaded from at startup, no
+		 * snapshots if not set.
+		 */
+		private File snapshot;
+
+		/**
+		 * Maximum number of entries in a snapshot.
+		 */
+		private int hottest = 10_000;
+
+		/**
+		 * Time between two snapshots.
+		 */
+		private Duration interval = Duration.ofMinutes(5);
+
+		/**
+		 * Number of threads loading the snapshot and prefetching.
+		 */
+		private int threads = 4;
+
+		/**
+		 * File with ISBNs to load at startup, one per line, if not in the snapshot.
+		 */
+		private File prefetch;
+
+		/**
+		 * Number of ISBNs fetched from the backend per call while prefetching.
+		 */
+		private int prefetchBatchSize = 100;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public File getSnapshot() {
+			return snapshot;
+		}
+
+		public void setSnapshot(File snapshot) {
+			this.snapshot = snapshot;
+		}
+
+		public int getHottest() {
+			return hottest;
+		}
+
+		public void setHottest(int hottest) {
+			this.hottest = hottest;
+		}
+
+		public Duration getInterval() {
+			return interval;
+		}
+
+		public void setInterval(Duration interval) {
+			this.interval = interval;
+		}
+
+		public int getThreads() {
+			return threads;
+		}
+
+		public void setThreads(int threads) {
+			this.threads = threads;
+		}
+
+		public File getPrefetch() {
+			return prefetch;
+		}
+
+		public void setPrefetch(File prefetch) {
+			this.prefetch = prefetch;
+		}
+
+		public int getPrefetchBatchSize() {
+			return prefetchBatchSize;
+		}
+
+		public void setPrefetchBatchSize(int prefetchBatchSize) {
+			this.prefetchBatchSize = prefetchBatchSize;
+		}
+
+	}
+
+	public static class Catalog {
+
+		/**
+		 * ISBNs of the books the backend has, every ISBN is a book if empty.
+		 */
+		private List<String> isbns = new ArrayList<>();
+
+		/**
+		 * Whether lookups of ISBNs that are not in the catalog are rejected by a
+		 * Bloom filter without calling the backend.
+		 */
+		private boolean bloomFilter = false;
+
+		/**
+		 * Probability that the Bloom filter lets an ISBN that is not in the catalog
+		 * through.
+		 */
+		private double falsePositiveRate = 0.01;
+
+		public List<String> getIsbns() {
+			return isbns;
+		}
+
+		public void setIsbns(List<String> isbns) {
+			this.isbns = isbns;
+		}
+
+		public boolean isBloomFilter() {
+			return bloomFilter;
+		}
+
+		public void setBloomFilter(boolean bloomFilter) {
+			this.bloomFilter = bloomFilter;
+		}
+
+		public double getFalsePositiveRate() {
+			return falsePositiveRate;
+		}
+
+		public void setFalsePositiveRate(double falsePositiveRate) {
+			this.falsePositiveRate = falsePositiveRate;
+		}
+
+	}
+
+}
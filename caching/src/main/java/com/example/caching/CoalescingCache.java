@@ -0,0 +1,146 @@
+package com.example.caching;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Decorates a cache so that concurrent misses for the same key load the value
+ * once. The first caller of {@link #get(Object, Callable)} for a missing key
+ * runs the loader and stores the result; callers arriving meanwhile wait for
+ * the same CompletableFuture instead of loading the value again.
+ *
+ * {@link #getAll(Collection, Function)} takes part in the same coalescing: it
+ * waits for the loads of missing keys that are already running and loads the
+ * rest with one call, which callers missing any of those keys wait for.
+ *
+ * Waiting callers give up after the timeout. If the load fails, every caller
+ * waiting for it gets the failure and nothing is cached, so the next caller
+ * loads the value again.
+ */
+public class CoalescingCache extends DelegatingCache {
+
+	private final long timeoutNanos;
+
+	private final ConcurrentMap<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+	private final LongAdder coalesced = new LongAdder();
+
+	/**
+	 * @param delegate the cache holding the values
+	 * @param timeout  how long a caller waits for a load run by another caller
+	 */
+	public CoalescingCache(Cache delegate, Duration timeout) {
+		super(delegate);
+		this.timeoutNanos = timeout.toNanos();
+	}
+
+	/**
+	 * Returns the number of callers that waited for a load run by another caller.
+	 */
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = getDelegate().get(key);
+		if (wrapper != null) {
+			return (T) wrapper.get();
+		}
+		CompletableFuture<Object> load = new CompletableFuture<>();
+		CompletableFuture<Object> running = loads.putIfAbsent(key, load);
+		if (running != null) {
+			coalesced.increment();
+			return (T) await(key, valueLoader, running);
+		}
+		try {
+			// a load that finished after our miss has already stored the value
+			wrapper = getDelegate().get(key);
+			T value = wrapper != null ? (T) wrapper.get() : valueLoader.call();
+			if (wrapper == null) {
+				getDelegate().put(key, value);
+			}
+			load.complete(value);
+			return value;
+		} catch (Exception e) {
+			load.completeExceptionally(e);
+			throw new ValueRetrievalException(key, valueLoader, e);
+		} finally {
+			loads.remove(key, load);
+		}
+	}
+
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys, Function<Set<Object>, Map<?, ?>> loader) {
+		Map<Object, Object> result = getAllPresent(keys);
+		Map<Object, CompletableFuture<Object>> owned = new LinkedHashMap<>();
+		Map<Object, CompletableFuture<Object>> running = new LinkedHashMap<>();
+		for (Object key : keys) {
+			if (result.containsKey(key) || owned.containsKey(key) || running.containsKey(key)) {
+				continue;
+			}
+			CompletableFuture<Object> load = new CompletableFuture<>();
+			CompletableFuture<Object> existing = loads.putIfAbsent(key, load);
+			if (existing == null) {
+				owned.put(key, load);
+			} else {
+				running.put(key, existing);
+			}
+		}
+		if (!owned.isEmpty()) {
+			try {
+				// loads that finished after our misses have already stored their values
+				result.putAll(getAllPresent(owned.keySet()));
+				Set<Object> missing = new LinkedHashSet<>(owned.keySet());
+				missing.removeAll(result.keySet());
+				if (!missing.isEmpty()) {
+					Map<?, ?> loaded = loader.apply(missing);
+					putAll(loaded);
+					result.putAll(loaded);
+				}
+				owned.forEach((key, load) -> load.complete(result.get(key)));
+			} catch (RuntimeException e) {
+				owned.values().forEach(load -> load.completeExceptionally(e));
+				throw e;
+			} finally {
+				owned.forEach(loads::remove);
+			}
+		}
+		if (!running.isEmpty()) {
+			coalesced.add(running.size());
+			running.forEach((key, load) -> result.put(key, await(key, null, load)));
+		}
+		return result;
+	}
+
+	private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+		try {
+			return load.get(timeoutNanos, TimeUnit.NANOSECONDS);
+		} catch (ExecutionException e) {
+			throw new ValueRetrievalException(key, valueLoader, e.getCause());
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Timed out after " + Duration.ofNanos(timeoutNanos)
+					+ " waiting for the value of " + key + " in cache " + getName(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.example.caching;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Base class of the caches that add behaviour to another cache. Every method
+ * is passed on to the delegate unless overridden; the bulk operations fall
+ * back to one call per key if the delegate is not a BulkCache.
+ */
+public abstract class DelegatingCache implements BulkCache {
+
+	private final Cache delegate;
+
+	protected DelegatingCache(Cache delegate) {
+		this.delegate = delegate;
+	}
+
+	public Cache getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Returns the first cache of the given type in the chain of delegates that
+	 * starts with cache, or null.
+	 */
+	public static <T extends Cache> T unwrap(Cache cache, Class<T> type) {
+		while (!type.isInstance(cache) && cache instanceof DelegatingCache) {
+			cache = ((DelegatingCache) cache).getDelegate();
+		}
+		return type.isInstance(cache) ? type.cast(cache) : null;
+	}
+
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return delegate.getNativeCache();
+	}
+
+	@Override
+	public ValueWrapper get(Object key) {
+		return delegate.get(key);
+	}
+
+	@Override
+	public <T> T get(Object key, Class<T> type) {
+		return delegate.get(key, type);
+	}
+
+	@Override
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		return delegate.get(key, valueLoader);
+	}
+
+	@Override
+	public Map<Object, Object> getAllPresent(Collection<?> keys) {
+		if (delegate instanceof BulkCache) {
+			return ((BulkCache) delegate).getAllPresent(keys);
+		}
+		Map<Object, Object> result = new LinkedHashMap<>();
+		for (Object key : keys) {
+			ValueWrapper wrapper = delegate.get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper.get());
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys, Function<Set<Object>, Map<?, ?>> loader) {
+		if (delegate instanceof BulkCache) {
+			return ((BulkCache) delegate).getAll(keys, loader);
+		}
+		return BulkCache.super.getAll(keys, loader);
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		delegate.put(key, value);
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		if (delegate instanceof BulkCache) {
+			((BulkCache) delegate).putAll(entries);
+		} else {
+			entries.forEach(delegate::put);
+		}
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		return delegate.putIfAbsent(key, value);
+	}
+
+	@Override
+	public void evict(Object key) {
+		delegate.evict(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		return delegate.evictIfPresent(key);
+	}
+
+	@Override
+	public void clear() {
+		delegate.clear();
+	}
+
+	@Override
+	public boolean invalidate() {
+		return delegate.invalidate();
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.example.caching;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The 64-bit hash of cache keys and catalog ISBNs: FNV-1a over the chars,
+ * finished with the SplitMix64 finalizer so that every bit of the result
+ * depends on every char.
+ */
+final class KeyHash {
+
+	private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long PRIME = 0x100000001b3L;
+
+	private KeyHash() {
+	}
+
+	static long hash(String value) {
+		long hash = OFFSET_BASIS;
+		for (int i = 0; i < value.length(); i++) {
+			hash = (hash ^ value.charAt(i)) * PRIME;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Hashes the string of length chars stored from start in buffer, the same as
+	 * {@link #hash(String)} does that string.
+	 */
+	static long hash(ByteBuffer buffer, int start, int length) {
+		long hash = OFFSET_BASIS;
+		for (int i = 0; i < length; i++) {
+			hash = (hash ^ buffer.getChar(start + 2 * i)) * PRIME;
+		}
+		return mix(hash);
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
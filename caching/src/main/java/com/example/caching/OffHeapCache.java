@@ -0,0 +1,105 @@
+package com.example.caching;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+/**
+ * A books cache held in an OffHeapStore, meant as the second level of a
+ * TieredCache. Keys must be Strings, values are serialized with the BookCodec.
+ */
+public class OffHeapCache extends AbstractValueAdaptingCache {
+
+	private final String name;
+
+	private final OffHeapStore store;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	public OffHeapCache(String name, OffHeapStore store) {
+		super(true);
+		this.name = name;
+		this.store = store;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public OffHeapStore getNativeCache() {
+		return store;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	@Override
+	protected Object lookup(Object key) {
+		byte[] bytes = store.get(keyOf(key));
+		if (bytes == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return BookCodec.decode(bytes);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = get(key);
+		if (wrapper != null) {
+			return (T) wrapper.get();
+		}
+		T value;
+		try {
+			value = valueLoader.call();
+		} catch (Exception e) {
+			throw new ValueRetrievalException(key, valueLoader, e);
+		}
+		put(key, value);
+		return value;
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		store.put(keyOf(key), BookCodec.encode(toStoreValue(value)));
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		ValueWrapper existing = get(key);
+		if (existing == null) {
+			put(key, value);
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		store.remove(keyOf(key));
+	}
+
+	@Override
+	public void clear() {
+		store.clear();
+	}
+
+	private static String keyOf(Object key) {
+		if (!(key instanceof String)) {
+			throw new IllegalArgumentException("Off heap caches need String keys, not " + key);
+		}
+		return (String) key;
+	}
+
+}
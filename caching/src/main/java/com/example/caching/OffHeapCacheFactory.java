@@ -0,0 +1,61 @@
+package com.example.caching;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+
+import com.example.caching.CachingProperties.OffHeap;
+
+/**
+ * Creates an OffHeapCache as the second level of each cache that has one. The
+ * slabs are direct buffers, or are mapped from NAME.slabs in the configured
+ * directory so that the entries survive a restart.
+ */
+public class OffHeapCacheFactory implements SecondLevelCacheFactory, DisposableBean {
+
+	private final OffHeap properties;
+
+	private final int slabSize;
+
+	private final List<OffHeapStore> stores = new CopyOnWriteArrayList<>();
+
+	public OffHeapCacheFactory(OffHeap properties) {
+		this.properties = properties;
+		long slabSize = properties.getSlabSize().toBytes();
+		// a slab is a single ByteBuffer, which has an int size
+		if (slabSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("caching.off-heap.slab-size must be less than 2GB, use more slabs instead: "
+					+ properties.getSlabSize());
+		}
+		this.slabSize = (int) slabSize;
+	}
+
+	@Override
+	public Cache create(String name) {
+		File path = null;
+		if (properties.getDirectory() != null) {
+			properties.getDirectory().mkdirs();
+			path = new File(properties.getDirectory(), name + ".slabs");
+		}
+		try {
+			OffHeapStore store = new OffHeapStore(properties.getSlabCount(), slabSize, path);
+			stores.add(store);
+			return new OffHeapCache(name, store);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to create the off heap store of cache " + name, e);
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		for (OffHeapStore store : stores) {
+			store.close();
+		}
+	}
+
+}
@@ -0,0 +1,418 @@
+package com.example.caching;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.util.Assert;
+
+/**
+ * Stores byte[] values by String key outside of the Java heap, in fixed size
+ * slabs of direct or memory mapped memory.
+ *
+ * Entries are appended to the current slab as
+ * {@code [int key length][int value length][key chars][value bytes]}. When the
+ * current slab is full the oldest slab is emptied and written next, which
+ * evicts its entries (FIFO per slab). The only heap structure is an index from
+ * a 64-bit hash of the key to the address of its entry, held in two long
+ * arrays, so the number of entries does not add to the objects the GC has to
+ * trace. Reads compare the stored key, so a hash collision costs a miss,
+ * never a wrong value.
+ *
+ * Slabs mapped from a file survive restarts: every slab starts with
+ * {@code [long generation][int used bytes]}, and the index is rebuilt by
+ * replaying the slabs in generation order. Removals are appended as tombstones
+ * so that they are replayed as well.
+ */
+public class OffHeapStore implements Closeable {
+
+	private static final int SLAB_HEADER = 12;
+
+	private static final int ENTRY_HEADER = 8;
+
+	private static final int TOMBSTONE = -1;
+
+	private final ByteBuffer[] slabs;
+
+	private final long[] generations;
+
+	private final int slabSize;
+
+	private final RandomAccessFile file;
+
+	private final LongLongMap index = new LongLongMap();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private int current;
+
+	private int position;
+
+	/**
+	 * @param slabCount number of slabs
+	 * @param slabSize  size of each slab in bytes
+	 * @param path      the file to map the slabs from, or null for direct buffers
+	 */
+	public OffHeapStore(int slabCount, int slabSize, File path) throws IOException {
+		Assert.isTrue(slabCount > 1, "slabCount must be at least 2");
+		Assert.isTrue(slabSize > SLAB_HEADER, "slabSize is too small");
+		this.slabs = new ByteBuffer[slabCount];
+		this.generations = new long[slabCount];
+		this.slabSize = slabSize;
+		if (path == null) {
+			this.file = null;
+			for (int i = 0; i < slabCount; i++) {
+				slabs[i] = ByteBuffer.allocateDirect(slabSize);
+			}
+			startSlab(0, 1);
+			return;
+		}
+		long length = (long) slabCount * slabSize;
+		this.file = new RandomAccessFile(path, "rw");
+		boolean reuse = file.length() == length;
+		if (!reuse) {
+			file.setLength(0);
+			file.setLength(length);
+		}
+		FileChannel channel = file.getChannel();
+		for (int i = 0; i < slabCount; i++) {
+			slabs[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * slabSize, slabSize);
+		}
+		if (!reuse || !replay()) {
+			Arrays.fill(generations, 0);
+			for (int i = 0; i < slabCount; i++) {
+				writeHeader(i, 0, SLAB_HEADER);
+			}
+			startSlab(0, 1);
+		}
+	}
+
+	/**
+	 * Returns the value stored for the key, or null.
+	 */
+	public byte[] get(String key) {
+		lock.readLock().lock();
+		try {
+			long address = index.get(KeyHash.hash(key));
+			if (address < 0) {
+				return null;
+			}
+			ByteBuffer slab = slabs[(int) (address >>> 32)];
+			int offset = (int) address;
+			int keyLength = slab.getInt(offset);
+			int valueLength = slab.getInt(offset + 4);
+			if (keyLength != key.length() || valueLength < 0) {
+				return null;
+			}
+			int keyStart = offset + ENTRY_HEADER;
+			for (int i = 0; i < keyLength; i++) {
+				if (slab.getChar(keyStart + 2 * i) != key.charAt(i)) {
+					return null;
+				}
+			}
+			byte[] value = new byte[valueLength];
+			ByteBuffer source = slab.duplicate();
+			source.position(keyStart + 2 * keyLength);
+			source.get(value);
+			return value;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Stores the value for the key. Values too large for a slab are not stored,
+	 * and any earlier value of the key is removed.
+	 */
+	public void put(String key, byte[] value) {
+		lock.writeLock().lock();
+		try {
+			long address = append(key, value, value.length);
+			if (address < 0) {
+				removeEntry(key);
+			} else {
+				index.put(KeyHash.hash(key), address);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(String key) {
+		lock.writeLock().lock();
+		try {
+			removeEntry(key);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void removeEntry(String key) {
+		if (index.remove(KeyHash.hash(key)) >= 0 && file != null) {
+			append(key, null, TOMBSTONE);
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			index.clear();
+			long generation = generations[current] + 1;
+			for (int i = 0; i < slabs.length; i++) {
+				writeHeader(i, 0, SLAB_HEADER);
+				generations[i] = 0;
+			}
+			startSlab(0, generation);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of entries.
+	 */
+	public long size() {
+		lock.readLock().lock();
+		try {
+			return index.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes the store can hold.
+	 */
+	public long capacity() {
+		return (long) slabs.length * slabSize;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (file != null) {
+			lock.writeLock().lock();
+			try {
+				for (ByteBuffer slab : slabs) {
+					((MappedByteBuffer) slab).force();
+				}
+				file.close();
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	// returns the address of the entry, or -1 if it does not fit in a slab
+	private long append(String key, byte[] value, int valueLength) {
+		long length = entryLength(key.length(), valueLength);
+		if (length > slabSize - SLAB_HEADER) {
+			return -1;
+		}
+		if (position + length > slabSize) {
+			int next = (current + 1) % slabs.length;
+			evictSlab(next);
+			startSlab(next, generations[current] + 1);
+		}
+		ByteBuffer slab = slabs[current];
+		int offset = position;
+		slab.putInt(offset, key.length());
+		slab.putInt(offset + 4, valueLength);
+		int keyStart = offset + ENTRY_HEADER;
+		for (int i = 0; i < key.length(); i++) {
+			slab.putChar(keyStart + 2 * i, key.charAt(i));
+		}
+		if (value != null) {
+			ByteBuffer target = slab.duplicate();
+			target.position(keyStart + 2 * key.length());
+			target.put(value);
+		}
+		position = offset + (int) length;
+		slab.putInt(8, position);
+		return ((long) current << 32) | offset;
+	}
+
+	// removes the index entries that still point into the slab
+	private void evictSlab(int slabIndex) {
+		ByteBuffer slab = slabs[slabIndex];
+		int used = slab.getInt(8);
+		for (int offset = SLAB_HEADER; offset < used;) {
+			int keyLength = slab.getInt(offset);
+			int valueLength = slab.getInt(offset + 4);
+			long address = ((long) slabIndex << 32) | offset;
+			long hash = KeyHash.hash(slab, offset + ENTRY_HEADER, keyLength);
+			if (index.get(hash) == address) {
+				index.remove(hash);
+			}
+			offset += (int) entryLength(keyLength, valueLength);
+		}
+	}
+
+	// in long, as the lengths read back from a mapped file may be anything
+	private static long entryLength(int keyLength, int valueLength) {
+		return ENTRY_HEADER + 2L * keyLength + Math.max(valueLength, 0);
+	}
+
+	private void startSlab(int slabIndex, long generation) {
+		current = slabIndex;
+		position = SLAB_HEADER;
+		generations[slabIndex] = generation;
+		writeHeader(slabIndex, generation, SLAB_HEADER);
+	}
+
+	private void writeHeader(int slabIndex, long generation, int used) {
+		slabs[slabIndex].putLong(0, generation);
+		slabs[slabIndex].putInt(8, used);
+	}
+
+	// rebuilds the index from the slabs of a mapped file, false if they are unusable
+	private boolean replay() {
+		Integer[] order = new Integer[slabs.length];
+		for (int i = 0; i < slabs.length; i++) {
+			order[i] = i;
+			generations[i] = slabs[i].getLong(0);
+			int used = slabs[i].getInt(8);
+			if (generations[i] < 0 || used < SLAB_HEADER || used > slabSize) {
+				return false;
+			}
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(generations[a], generations[b]));
+		for (int slabIndex : order) {
+			if (generations[slabIndex] == 0) {
+				continue;
+			}
+			ByteBuffer slab = slabs[slabIndex];
+			int used = slab.getInt(8);
+			for (int offset = SLAB_HEADER; offset < used;) {
+				if (used - offset < ENTRY_HEADER) {
+					index.clear();
+					return false;
+				}
+				int keyLength = slab.getInt(offset);
+				int valueLength = slab.getInt(offset + 4);
+				long length = entryLength(keyLength, valueLength);
+				if (keyLength < 0 || valueLength < TOMBSTONE || length > used - offset) {
+					index.clear();
+					return false;
+				}
+				long hash = KeyHash.hash(slab, offset + ENTRY_HEADER, keyLength);
+				if (valueLength == TOMBSTONE) {
+					index.remove(hash);
+				} else {
+					index.put(hash, ((long) slabIndex << 32) | offset);
+				}
+				offset += (int) length;
+			}
+		}
+		int last = order[order.length - 1];
+		if (generations[last] == 0) {
+			startSlab(0, 1);
+		} else {
+			current = last;
+			position = slabs[last].getInt(8);
+		}
+		return true;
+	}
+
+	/**
+	 * An open addressing map from long to non-negative long, with linear probing
+	 * and backward shift deletion. Zero is not a valid key, it marks free slots.
+	 */
+	static final class LongLongMap {
+
+		private long[] keys = new long[1024];
+
+		private long[] values = new long[1024];
+
+		private int size;
+
+		long get(long key) {
+			key = key == 0 ? 1 : key;
+			int mask = keys.length - 1;
+			for (int i = (int) key & mask;; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					return values[i];
+				}
+				if (keys[i] == 0) {
+					return -1;
+				}
+			}
+		}
+
+		void put(long key, long value) {
+			key = key == 0 ? 1 : key;
+			if (2 * (size + 1) > keys.length) {
+				resize();
+			}
+			int mask = keys.length - 1;
+			int i = (int) key & mask;
+			while (keys[i] != 0 && keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			if (keys[i] == 0) {
+				keys[i] = key;
+				size++;
+			}
+			values[i] = value;
+		}
+
+		// returns the removed value, or -1
+		long remove(long key) {
+			key = key == 0 ? 1 : key;
+			int mask = keys.length - 1;
+			int i = (int) key & mask;
+			while (keys[i] != key) {
+				if (keys[i] == 0) {
+					return -1;
+				}
+				i = (i + 1) & mask;
+			}
+			long removed = values[i];
+			// moves later entries of the probe sequence into the gap
+			for (int gap = i, j = (i + 1) & mask;; j = (j + 1) & mask) {
+				if (keys[j] == 0) {
+					keys[gap] = 0;
+					break;
+				}
+				int home = (int) keys[j] & mask;
+				if (((j - home) & mask) >= ((j - gap) & mask)) {
+					keys[gap] = keys[j];
+					values[gap] = values[j];
+					gap = j;
+				}
+			}
+			size--;
+			return removed;
+		}
+
+		int size() {
+			return size;
+		}
+
+		void clear() {
+			Arrays.fill(keys, 0);
+			size = 0;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			long[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new long[oldValues.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0) {
+					put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+
+	}
+
+}
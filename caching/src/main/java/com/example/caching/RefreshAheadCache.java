@@ -0,0 +1,193 @@
+package com.example.caching;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+/**
+ * Decorates a cache so that hot entries are reloaded before they expire, and
+ * callers are not the ones waiting for the reload.
+ *
+ * An entry is fresh for ttl after it was written. When
+ * {@link #get(Object, Callable)} finds an entry within the refresh window
+ * before the end of that time, or stale for at most maxStaleness after it, it
+ * returns the entry and reloads it in the background with the loader set by
+ * {@link #setLoader(Function)}. The caller's own loader is not used for that,
+ * as it is the cached method call, which would then run outside the caller's
+ * thread and its interceptors. Without a loader, entries are not reloaded in
+ * the background and stale ones are loaded again by the caller. The store must
+ * keep entries for ttl + maxStaleness. Callers without a loader
+ * ({@link #get(Object)}) treat stale entries as missing.
+ *
+ * {@link #getAll(Collection, Function)} does the same for many keys, reloading
+ * the ones due with one background call of its loader.
+ *
+ * Each key is reloaded at most once at a time, on a bounded executor. A reload
+ * that the executor rejects, or that fails, is dropped and the entry keeps its
+ * value until a later access reloads it or it expires.
+ */
+public class RefreshAheadCache extends DelegatingCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+	private final TieredCache store;
+
+	private final long ttlNanos;
+
+	private final long refreshAfterNanos;
+
+	private final Executor executor;
+
+	private final ConcurrentHashMap<Object, Boolean> refreshing = new ConcurrentHashMap<>();
+
+	private final LongAdder refreshes = new LongAdder();
+
+	private final LongAdder staleHits = new LongAdder();
+
+	private final LongAdder dropped = new LongAdder();
+
+	private volatile Function<Set<Object>, Map<?, ?>> loader;
+
+	/**
+	 * @param delegate      the cache to decorate
+	 * @param store         the cache at the bottom of delegate, which knows the
+	 *                      age of its entries
+	 * @param ttl           how long an entry is fresh
+	 * @param refreshWindow how long before the end of ttl an accessed entry is
+	 *                      reloaded
+	 * @param executor      runs the reloads
+	 */
+	public RefreshAheadCache(Cache delegate, TieredCache store, Duration ttl, Duration refreshWindow,
+			Executor executor) {
+		super(delegate);
+		this.store = store;
+		this.ttlNanos = ttl.toNanos();
+		this.refreshAfterNanos = Math.max(0, ttl.minus(refreshWindow).toNanos());
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the loader that reloads entries in the background, which returns the
+	 * values of the keys it is given, with the same keys and values as the cached
+	 * method.
+	 */
+	public void setLoader(Function<Set<Object>, Map<?, ?>> loader) {
+		this.loader = loader;
+	}
+
+	public long getRefreshCount() {
+		return refreshes.sum();
+	}
+
+	public long getStaleHitCount() {
+		return staleHits.sum();
+	}
+
+	public long getDroppedRefreshCount() {
+		return dropped.sum();
+	}
+
+	@Override
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = getDelegate().get(key);
+		return wrapper != null && store.ageOf(key) >= ttlNanos ? null : wrapper;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = wrapper != null ? wrapper.get() : null;
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(
+					"Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = getDelegate().get(key);
+		if (wrapper == null) {
+			return getDelegate().get(key, valueLoader);
+		}
+		long age = store.ageOf(key);
+		Function<Set<Object>, Map<?, ?>> loader = this.loader;
+		if (loader == null) {
+			if (age >= ttlNanos) {
+				evict(key);
+				return getDelegate().get(key, valueLoader);
+			}
+		} else if (age >= refreshAfterNanos) {
+			if (age >= ttlNanos) {
+				staleHits.increment();
+			}
+			if (refreshing.putIfAbsent(key, Boolean.TRUE) == null) {
+				refreshAll(Collections.singleton(key), loader);
+			}
+		}
+		return (T) wrapper.get();
+	}
+
+	@Override
+	public Map<Object, Object> getAllPresent(Collection<?> keys) {
+		Map<Object, Object> result = super.getAllPresent(keys);
+		result.keySet().removeIf(key -> store.ageOf(key) >= ttlNanos);
+		return result;
+	}
+
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys, Function<Set<Object>, Map<?, ?>> loader) {
+		Map<Object, Object> result = super.getAll(keys, loader);
+		Set<Object> due = new LinkedHashSet<>();
+		for (Object key : result.keySet()) {
+			long age = store.ageOf(key);
+			if (age >= refreshAfterNanos) {
+				if (age >= ttlNanos) {
+					staleHits.increment();
+				}
+				if (refreshing.putIfAbsent(key, Boolean.TRUE) == null) {
+					due.add(key);
+				}
+			}
+		}
+		if (!due.isEmpty()) {
+			refreshAll(due, loader);
+		}
+		return result;
+	}
+
+	private void refreshAll(Set<Object> keys, Function<Set<Object>, Map<?, ?>> loader) {
+		try {
+			executor.execute(() -> {
+				try {
+					putAll(loader.apply(keys));
+					refreshes.add(keys.size());
+				} catch (RuntimeException e) {
+					dropped.add(keys.size());
+					logger.warn("Failed to refresh " + keys.size() + " entries in cache " + getName(), e);
+				} finally {
+					refreshing.keySet().removeAll(keys);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			dropped.add(keys.size());
+			refreshing.keySet().removeAll(keys);
+		}
+	}
+
+}
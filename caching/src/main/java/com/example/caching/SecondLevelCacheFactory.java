@@ -0,0 +1,15 @@
+package com.example.caching;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Creates the second level of a TieredCache. Declare a bean of this type to
+ * put a second tier behind the caches that have caching.caches.NAME.second-level
+ * set.
+ */
+@FunctionalInterface
+public interface SecondLevelCacheFactory {
+
+	Cache create(String name);
+
+}
@@ -1,16 +1,102 @@
 package com.example.caching;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
 
+/**
+ * Looks books up in a slow simulated backend, which has the books of the
+ * catalog, or a book for every ISBN if the catalog is empty.
+ *
+ * With the Bloom filter enabled, ISBNs that are certainly not in the catalog
+ * are answered with null without calling the backend. Either way a missing
+ * book is cached as null, in the negative cache if the books cache has one.
+ * If the books cache refreshes ahead, it reloads books with the same backend
+ * call as {@link #getByIsbns(Collection)}.
+ */
 @Component
 public class SimpleBookRepository implements BookRepository {
 
+	private final CacheManager cacheManager;
+
+	private final Set<String> catalog;
+
+	private final BloomFilter knownIsbns;
+
+	public SimpleBookRepository(CacheManager cacheManager, CachingProperties properties) {
+		this.cacheManager = cacheManager;
+		this.catalog = new HashSet<>(properties.getCatalog().getIsbns());
+		this.knownIsbns = properties.getCatalog().isBloomFilter() && !catalog.isEmpty()
+				? BloomFilter.of(catalog, properties.getCatalog().getFalsePositiveRate())
+				: null;
+		RefreshAheadCache books = DelegatingCache.unwrap(cacheManager.getCache("books"), RefreshAheadCache.class);
+		if (books != null) {
+			books.setLoader(this::loadBooks);
+		}
+	}
+
 	@Override
 	@Cacheable("books")
 	public Book getByIsbn(String isbn) {
+		if (!mightExist(isbn)) {
+			return null;
+		}
 		simulateSlowService();
-		return new Book(isbn, "Some book");
+		return find(isbn);
+	}
+
+	/**
+	 * Looks the ISBNs up in the books cache with one multi-get and fetches all
+	 * misses with one backend call. The ISBN is the cache key, as it is for
+	 * getByIsbn, so both methods share their entries and their in-flight loads.
+	 */
+	@Override
+	public Map<String, Book> getByIsbns(Collection<String> isbns) {
+		BulkCache cache = (BulkCache) cacheManager.getCache("books");
+		Map<Object, Object> cached = cache.getAll(isbns, this::loadBooks);
+		Map<String, Book> books = new LinkedHashMap<>();
+		for (String isbn : isbns) {
+			Book book = (Book) cached.get(isbn);
+			if (book != null) {
+				books.put(isbn, book);
+			}
+		}
+		return books;
+	}
+
+	// ISBNs without a book are mapped to null, so that they are cached as missing
+	private Map<Object, Book> loadBooks(Set<Object> isbns) {
+		Map<Object, Book> books = new LinkedHashMap<>();
+		Set<Object> lookups = new LinkedHashSet<>();
+		for (Object isbn : isbns) {
+			if (mightExist((String) isbn)) {
+				lookups.add(isbn);
+			} else {
+				books.put(isbn, null);
+			}
+		}
+		if (!lookups.isEmpty()) {
+			simulateSlowService();
+			for (Object isbn : lookups) {
+				books.put(isbn, find((String) isbn));
+			}
+		}
+		return books;
+	}
+
+	private boolean mightExist(String isbn) {
+		return knownIsbns == null || knownIsbns.mightContain(isbn);
+	}
+
+	private Book find(String isbn) {
+		return catalog.isEmpty() || catalog.contains(isbn) ? new Book(isbn, "Some book") : null;
 	}
 
 	private void simulateSlowService() {
@@ -0,0 +1,93 @@
+package com.example.caching;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.interceptor.CacheOperation;
+import org.springframework.cache.interceptor.CacheOperationSource;
+import org.springframework.cache.interceptor.CacheableOperation;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.util.StringUtils;
+
+/**
+ * Turns every {@code @Cacheable} operation that can be synchronized into one
+ * with {@code sync = true}, so that misses go through
+ * {@link org.springframework.cache.Cache#get(Object, java.util.concurrent.Callable)}
+ * and are coalesced by the CoalescingCache. Operations that sync does not
+ * support (several caches, an unless condition, other cache operations on the
+ * same method, a custom cache resolver) are left as they are.
+ */
+public class SynchronizedCacheableOperationSource implements CacheOperationSource {
+
+	private final CacheOperationSource delegate;
+
+	private final ConcurrentMap<MethodClassKey, Collection<CacheOperation>> operations = new ConcurrentHashMap<>();
+
+	public SynchronizedCacheableOperationSource(CacheOperationSource delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public boolean isCandidateClass(Class<?> targetClass) {
+		return delegate.isCandidateClass(targetClass);
+	}
+
+	@Override
+	public Collection<CacheOperation> getCacheOperations(Method method, Class<?> targetClass) {
+		Collection<CacheOperation> result = delegate.getCacheOperations(method, targetClass);
+		if (result == null || result.size() != 1) {
+			return result;
+		}
+		return operations.computeIfAbsent(new MethodClassKey(method, targetClass), key -> synchronize(result));
+	}
+
+	private static Collection<CacheOperation> synchronize(Collection<CacheOperation> operations) {
+		CacheOperation operation = operations.iterator().next();
+		if (!(operation instanceof CacheableOperation)) {
+			return operations;
+		}
+		CacheableOperation cacheable = (CacheableOperation) operation;
+		if (cacheable.isSync() || cacheable.getCacheNames().size() != 1 || StringUtils.hasText(cacheable.getUnless())
+				|| StringUtils.hasText(cacheable.getCacheResolver())) {
+			return operations;
+		}
+		CacheableOperation.Builder builder = new CacheableOperation.Builder();
+		builder.setName(cacheable.getName());
+		builder.setCacheNames(cacheable.getCacheNames().toArray(new String[0]));
+		builder.setKey(cacheable.getKey());
+		builder.setKeyGenerator(cacheable.getKeyGenerator());
+		builder.setCacheManager(cacheable.getCacheManager());
+		builder.setCondition(cacheable.getCondition());
+		builder.setSync(true);
+		return Collections.singletonList(builder.build());
+	}
+
+	/**
+	 * Wraps the CacheOperationSource of the caching infrastructure. It runs before
+	 * the auto proxy creator is registered, since the cache advisor is created
+	 * while that creator looks for advisors.
+	 */
+	public static class PostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			if (bean instanceof CacheOperationSource && !(bean instanceof SynchronizedCacheableOperationSource)) {
+				return new SynchronizedCacheableOperationSource((CacheOperationSource) bean);
+			}
+			return bean;
+		}
+
+		@Override
+		public int getOrder() {
+			return Ordered.LOWEST_PRECEDENCE;
+		}
+
+	}
+
+}
@@ -0,0 +1,248 @@
+package com.example.caching;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+
+/**
+ * A cache with a size bounded Caffeine cache as its first level and an
+ * optional second level cache behind it. Reads go to the first level, then to
+ * the second, copying what they find there into the first. Writes and
+ * evictions go to both.
+ *
+ * Like the ConcurrentMapCache it replaces, the cache stores nulls. Given a
+ * negative cache, nulls are kept there instead, typically with a shorter time
+ * to live and a smaller size, so lookups of missing keys neither crowd out
+ * values nor hide a key that is added later for long. Negative entries are not
+ * written to the second level.
+ */
+public class TieredCache extends AbstractValueAdaptingCache implements BulkCache {
+
+	private final String name;
+
+	private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+
+	private final Cache secondLevel;
+
+	private final com.github.benmanes.caffeine.cache.Cache<Object, Object> negatives;
+
+	/**
+	 * @param name        the name of the cache
+	 * @param local       the first level, holding store values
+	 * @param secondLevel the second level, or null for none
+	 */
+	public TieredCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+			Cache secondLevel) {
+		this(name, local, secondLevel, null);
+	}
+
+	/**
+	 * @param name        the name of the cache
+	 * @param local       the first level, holding store values
+	 * @param secondLevel the second level, or null for none
+	 * @param negatives   holds the keys cached as null, or null to keep them in
+	 *                    the levels like any other value
+	 */
+	public TieredCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+			Cache secondLevel, com.github.benmanes.caffeine.cache.Cache<Object, Object> negatives) {
+		super(true);
+		this.name = name;
+		this.local = local;
+		this.secondLevel = secondLevel;
+		this.negatives = negatives;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache() {
+		return local;
+	}
+
+	public Cache getSecondLevel() {
+		return secondLevel;
+	}
+
+	public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNegatives() {
+		return negatives;
+	}
+
+	/**
+	 * Returns the nanoseconds since the entry was written to the first level, or
+	 * -1 if it is not there or the first level does not expire after write.
+	 */
+	public long ageOf(Object key) {
+		return local.policy().expireAfterWrite()
+				.map(expiration -> expiration.ageOf(key, TimeUnit.NANOSECONDS).orElse(-1)).orElse(-1L);
+	}
+
+	/**
+	 * Returns up to limit of the first level entries that are the least likely
+	 * to be evicted, with their values as stored (a cached null is a NullValue).
+	 */
+	public Map<Object, Object> hottest(int limit) {
+		return local.policy().eviction().map(eviction -> eviction.hottest(limit))
+				.orElse(Collections.emptyMap());
+	}
+
+	@Override
+	protected Object lookup(Object key) {
+		Object value = local.getIfPresent(key);
+		if (value == null && negatives != null) {
+			value = negatives.getIfPresent(key);
+		}
+		if (value != null || secondLevel == null) {
+			return value;
+		}
+		ValueWrapper wrapper = secondLevel.get(key);
+		if (wrapper == null) {
+			return null;
+		}
+		value = toStoreValue(wrapper.get());
+		local.put(key, value);
+		return value;
+	}
+
+	/**
+	 * Loads a missing value through the first level, so concurrent callers for
+	 * the same key wait for a single load.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		if (negatives != null && negatives.getIfPresent(key) != null) {
+			return null;
+		}
+		return (T) fromStoreValue(local.get(key, k -> load(k, valueLoader)));
+	}
+
+	private Object load(Object key, Callable<?> valueLoader) {
+		if (secondLevel != null) {
+			ValueWrapper wrapper = secondLevel.get(key);
+			if (wrapper != null) {
+				return toStoreValue(wrapper.get());
+			}
+		}
+		Object value;
+		try {
+			value = valueLoader.call();
+		} catch (Exception e) {
+			throw new ValueRetrievalException(key, valueLoader, e);
+		}
+		if (value == null && negatives != null) {
+			// returning null leaves the first level without an entry
+			negatives.put(key, NullValue.INSTANCE);
+			return null;
+		}
+		if (secondLevel != null) {
+			secondLevel.put(key, value);
+		}
+		return toStoreValue(value);
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		if (negatives != null) {
+			if (value == null) {
+				evict(key);
+				negatives.put(key, NullValue.INSTANCE);
+				return;
+			}
+			negatives.invalidate(key);
+		}
+		local.put(key, toStoreValue(value));
+		if (secondLevel != null) {
+			secondLevel.put(key, value);
+		}
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		if (negatives != null) {
+			Object existing = lookup(key);
+			if (existing != null) {
+				return toValueWrapper(existing);
+			}
+			if (value == null) {
+				return toValueWrapper(negatives.asMap().putIfAbsent(key, NullValue.INSTANCE));
+			}
+		}
+		Object existing = local.asMap().putIfAbsent(key, toStoreValue(value));
+		if (existing == null && secondLevel != null) {
+			secondLevel.put(key, value);
+		}
+		return toValueWrapper(existing);
+	}
+
+	@Override
+	public Map<Object, Object> getAllPresent(Collection<?> keys) {
+		Map<Object, Object> result = new LinkedHashMap<>();
+		local.getAllPresent(keys).forEach((key, value) -> result.put(key, fromStoreValue(value)));
+		if (negatives != null && result.size() < keys.size()) {
+			negatives.getAllPresent(keys).keySet().forEach(key -> result.putIfAbsent(key, null));
+		}
+		if (secondLevel != null && result.size() < keys.size()) {
+			for (Object key : keys) {
+				if (!result.containsKey(key)) {
+					ValueWrapper wrapper = secondLevel.get(key);
+					if (wrapper != null) {
+						local.put(key, toStoreValue(wrapper.get()));
+						result.put(key, wrapper.get());
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		if (negatives != null && entries.containsValue(null)) {
+			entries.forEach(this::put);
+			return;
+		}
+		Map<Object, Object> values = new HashMap<>();
+		entries.forEach((key, value) -> values.put(key, toStoreValue(value)));
+		local.putAll(values);
+		if (negatives != null) {
+			negatives.invalidateAll(entries.keySet());
+		}
+		if (secondLevel != null) {
+			entries.forEach(secondLevel::put);
+		}
+	}
+
+	@Override
+	public void evict(Object key) {
+		local.invalidate(key);
+		if (negatives != null) {
+			negatives.invalidate(key);
+		}
+		if (secondLevel != null) {
+			secondLevel.evict(key);
+		}
+	}
+
+	@Override
+	public void clear() {
+		local.invalidateAll();
+		if (negatives != null) {
+			negatives.invalidateAll();
+		}
+		if (secondLevel != null) {
+			secondLevel.clear();
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.example.caching;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.util.Assert;
+
+import com.example.caching.CachingProperties.Spec;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Creates a TieredCache per cache name, limited as set in CachingProperties.
+ * The caches listed there are created at startup, so their metrics are bound;
+ * any other name gets a cache with the default limits on first use. Caches
+ * with a negative-maximum-size keep their nulls in a separate negative cache. Every
+ * cache is wrapped in a CoalescingCache, so concurrent misses load once, and
+ * caches with refresh-ahead set in a RefreshAheadCache.
+ */
+public class TieredCacheManager extends AbstractCacheManager {
+
+	private final CachingProperties properties;
+
+	private final SecondLevelCacheFactory secondLevelFactory;
+
+	private final Executor refreshExecutor;
+
+	/**
+	 * @param properties         the limits of the caches
+	 * @param secondLevelFactory creates the second levels, or null for none
+	 * @param refreshExecutor    runs the background reloads of refresh-ahead
+	 *                           caches
+	 */
+	public TieredCacheManager(CachingProperties properties, SecondLevelCacheFactory secondLevelFactory,
+			Executor refreshExecutor) {
+		this.properties = properties;
+		this.secondLevelFactory = secondLevelFactory;
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	@Override
+	protected Collection<? extends Cache> loadCaches() {
+		List<Cache> caches = new ArrayList<>();
+		for (String name : properties.getCaches().keySet()) {
+			caches.add(createCache(name));
+		}
+		return caches;
+	}
+
+	@Override
+	protected Cache getMissingCache(String name) {
+		return createCache(name);
+	}
+
+	@Override
+	protected Cache decorateCache(Cache cache) {
+		Cache coalescing = new CoalescingCache(cache, properties.getLoadTimeout(cache.getName()));
+		Spec spec = properties.getSpec(cache.getName());
+		if (spec.getRefreshAhead() == null || !(cache instanceof TieredCache)) {
+			return coalescing;
+		}
+		return new RefreshAheadCache(coalescing, (TieredCache) cache, spec.getExpireAfterWrite(),
+				spec.getRefreshAhead(), refreshExecutor);
+	}
+
+	protected Cache createCache(String name) {
+		Spec spec = properties.getSpec(name);
+		Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(spec.getMaximumSize()).recordStats();
+		if (spec.getRefreshAhead() != null) {
+			Assert.notNull(spec.getExpireAfterWrite(), "Cache " + name + " needs expire-after-write for refresh-ahead");
+			// stale entries are kept until the refresh replaces them
+			builder.expireAfterWrite(spec.getExpireAfterWrite().plus(spec.getMaxStaleness()));
+		} else if (spec.getExpireAfterWrite() != null) {
+			builder.expireAfterWrite(spec.getExpireAfterWrite());
+		}
+		if (spec.getExpireAfterAccess() != null) {
+			builder.expireAfterAccess(spec.getExpireAfterAccess());
+		}
+		Cache secondLevel = spec.isSecondLevel() && secondLevelFactory != null ? secondLevelFactory.create(name)
+				: null;
+		com.github.benmanes.caffeine.cache.Cache<Object, Object> negatives = null;
+		if (spec.getNegativeMaximumSize() > 0) {
+			Caffeine<Object, Object> negativeBuilder = Caffeine.newBuilder()
+					.maximumSize(spec.getNegativeMaximumSize()).recordStats();
+			if (spec.getNegativeTtl() != null) {
+				negativeBuilder.expireAfterWrite(spec.getNegativeTtl());
+			}
+			negatives = negativeBuilder.build();
+		}
+		return new TieredCache(name, builder.build(), secondLevel, negatives);
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.example.caching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache.ValueRetrievalException;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+public class CoalescingCacheTests {
+
+	private static final int THREADS = 8;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+	private final ConcurrentMapCache store = new ConcurrentMapCache("books");
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	public void tearDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	// blocks until released, so that the other threads miss while it is running
+	private Callable<String> loader(Callable<String> result) {
+		return () -> {
+			loads.incrementAndGet();
+			release.await();
+			return result.call();
+		};
+	}
+
+	private List<Future<String>> missConcurrently(CoalescingCache cache, Callable<String> loader)
+			throws InterruptedException {
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(() -> cache.get("k", loader)));
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (cache.getCoalescedCount() < THREADS - 1 && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(cache.getCoalescedCount()).isEqualTo(THREADS - 1);
+		return results;
+	}
+
+	@Test
+	public void loadsOnceForConcurrentMisses() throws Exception {
+		CoalescingCache cache = new CoalescingCache(store, Duration.ofSeconds(10));
+		List<Future<String>> results = missConcurrently(cache, loader(() -> new String("value")));
+		release.countDown();
+		String first = results.get(0).get(10, TimeUnit.SECONDS);
+		for (Future<String> result : results) {
+			// the same instance, not an equal one loaded again
+			assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(first);
+		}
+		assertThat(loads).hasValue(1);
+		assertThat(store.get("k").get()).isSameAs(first);
+	}
+
+	@Test
+	public void deliversAFailedLoadToEveryWaiter() throws Exception {
+		CoalescingCache cache = new CoalescingCache(store, Duration.ofSeconds(10));
+		List<Future<String>> results = missConcurrently(cache, loader(() -> {
+			throw new IllegalStateException("backend down");
+		}));
+		release.countDown();
+		for (Future<String> result : results) {
+			Throwable failure = catchThrowable(() -> result.get(10, TimeUnit.SECONDS));
+			assertThat(failure).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(ValueRetrievalException.class);
+			assertThat(failure.getCause().getCause()).hasMessage("backend down");
+		}
+		assertThat(loads).hasValue(1);
+		// nothing is cached, so the next miss loads again
+		assertThat(store.get("k")).isNull();
+		assertThat(cache.get("k", () -> "value")).isEqualTo("value");
+	}
+
+	@Test
+	public void waitersGiveUpAfterTheTimeout() throws Exception {
+		CoalescingCache cache = new CoalescingCache(store, Duration.ofMillis(100));
+		Future<String> owner = executor.submit(() -> cache.get("k", loader(() -> "value")));
+		while (loads.get() == 0) {
+			Thread.sleep(1);
+		}
+		assertThatThrownBy(() -> cache.get("k", () -> "other")).isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Timed out");
+		release.countDown();
+		assertThat(owner.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	public void getAllWaitsForTheLoadsOfSingleKeys() throws Exception {
+		CoalescingCache cache = new CoalescingCache(store, Duration.ofSeconds(10));
+		Future<String> owner = executor.submit(() -> cache.get("k", loader(() -> "value")));
+		while (loads.get() == 0) {
+			Thread.sleep(1);
+		}
+		Future<Map<Object, Object>> all = executor.submit(() -> cache.getAll(Arrays.asList("k", "j"), keys -> {
+			assertThat(keys).containsExactly("j");
+			return Collections.singletonMap("j", "other");
+		}));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (cache.getCoalescedCount() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+		assertThat(owner.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+		assertThat(all.get(10, TimeUnit.SECONDS)).containsEntry("k", "value").containsEntry("j", "other");
+		assertThat(loads).hasValue(1);
+	}
+
+}
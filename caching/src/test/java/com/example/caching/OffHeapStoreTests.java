@@ -0,0 +1,133 @@
+package com.example.caching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.example.caching.CachingProperties.OffHeap;
+
+public class OffHeapStoreTests {
+
+	// the slab header takes 12 bytes, and an entry of a 2 character key and a 10 byte value 22
+	private static final int SLAB_SIZE = 12 + 4 * 22;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void putsGetsAndRemoves() throws IOException {
+		try (OffHeapStore store = new OffHeapStore(2, SLAB_SIZE, null)) {
+			assertThat(store.get("k1")).isNull();
+			store.put("k1", value("first"));
+			store.put("k2", value("second"));
+			assertThat(store.get("k1")).isEqualTo(value("first"));
+			assertThat(store.get("k2")).isEqualTo(value("second"));
+			store.put("k1", value("replaced"));
+			assertThat(store.get("k1")).isEqualTo(value("replaced"));
+			store.remove("k1");
+			assertThat(store.get("k1")).isNull();
+			assertThat(store.get("k2")).isEqualTo(value("second"));
+			assertThat(store.size()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void doesNotStoreValuesLargerThanASlab() throws IOException {
+		try (OffHeapStore store = new OffHeapStore(2, SLAB_SIZE, null)) {
+			store.put("k1", value("first"));
+			store.put("k1", new byte[SLAB_SIZE]);
+			// the earlier value is removed rather than served stale
+			assertThat(store.get("k1")).isNull();
+			assertThat(store.size()).isZero();
+		}
+	}
+
+	@Test
+	public void evictsTheOldestSlabWhenAllAreFull() throws IOException {
+		try (OffHeapStore store = new OffHeapStore(2, SLAB_SIZE, null)) {
+			for (int i = 0; i < 12; i++) {
+				store.put("k" + Integer.toHexString(i), value(i));
+			}
+			// k0 to k3 filled the first slab, which k8 to kb were written over
+			for (int i = 0; i < 4; i++) {
+				assertThat(store.get("k" + i)).isNull();
+			}
+			for (int i = 4; i < 12; i++) {
+				assertThat(store.get("k" + Integer.toHexString(i))).isEqualTo(value(i));
+			}
+			assertThat(store.size()).isEqualTo(8);
+		}
+	}
+
+	@Test
+	public void replaysMappedSlabs() throws IOException {
+		File file = directory.resolve("books.slabs").toFile();
+		try (OffHeapStore store = new OffHeapStore(2, SLAB_SIZE, file)) {
+			for (int i = 0; i < 7; i++) {
+				store.put("k" + i, value(i));
+			}
+			store.put("k5", value("replaced"));
+			store.remove("k6");
+		}
+		try (OffHeapStore store = new OffHeapStore(2, SLAB_SIZE, file)) {
+			// the entries and the tombstone in the newest slab replay after the wrapped around oldest one
+			for (int i = 0; i < 4; i++) {
+				assertThat(store.get("k" + i)).isNull();
+			}
+			assertThat(store.get("k4")).isEqualTo(value(4));
+			assertThat(store.get("k5")).isEqualTo(value("replaced"));
+			assertThat(store.get("k6")).isNull();
+			assertThat(store.size()).isEqualTo(2);
+			// writing carries on where the last run stopped
+			store.put("k7", value(7));
+			assertThat(store.get("k4")).isEqualTo(value(4));
+			assertThat(store.get("k7")).isEqualTo(value(7));
+		}
+	}
+
+	@Test
+	public void startsEmptyFromCorruptedSlabs() throws IOException {
+		File file = directory.resolve("books.slabs").toFile();
+		try (OffHeapStore store = new OffHeapStore(2, SLAB_SIZE, file)) {
+			store.put("k1", value(1));
+			store.put("k2", value(2));
+		}
+		try (RandomAccessFile slabs = new RandomAccessFile(file, "rw")) {
+			// a key length whose entry length overflows an int
+			slabs.seek(12);
+			slabs.writeInt(Integer.MAX_VALUE);
+		}
+		try (OffHeapStore store = new OffHeapStore(2, SLAB_SIZE, file)) {
+			assertThat(store.size()).isZero();
+			assertThat(store.get("k2")).isNull();
+			store.put("k3", value(3));
+			assertThat(store.get("k3")).isEqualTo(value(3));
+		}
+	}
+
+	@Test
+	public void rejectsSlabsOf2GB() {
+		OffHeap properties = new OffHeap();
+		properties.setSlabSize(DataSize.ofGigabytes(2));
+		assertThatThrownBy(() -> new OffHeapCacheFactory(properties)).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("slab-size");
+	}
+
+	private static byte[] value(int i) {
+		return value(String.format("value%05d", i));
+	}
+
+	private static byte[] value(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
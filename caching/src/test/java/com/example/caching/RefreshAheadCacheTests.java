@@ -0,0 +1,169 @@
+package com.example.caching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+public class RefreshAheadCacheTests {
+
+	// fresh for 10s, reloaded from 8s on and served stale until 15s
+	private static final Duration TTL = Duration.ofSeconds(10);
+
+	private static final Duration REFRESH_WINDOW = Duration.ofSeconds(2);
+
+	private static final Duration MAX_STALENESS = Duration.ofSeconds(5);
+
+	private final AtomicLong ticker = new AtomicLong();
+
+	private final List<Runnable> reloads = new ArrayList<>();
+
+	private final List<Set<Object>> loaded = new ArrayList<>();
+
+	private final AtomicInteger callerLoads = new AtomicInteger();
+
+	private TieredCache store;
+
+	@BeforeEach
+	public void init() {
+		store = new TieredCache("books", Caffeine.newBuilder().ticker(ticker::get).executor(Runnable::run)
+				.expireAfterWrite(TTL.plus(MAX_STALENESS)).build(), null);
+	}
+
+	private RefreshAheadCache cache(Executor executor) {
+		RefreshAheadCache cache = new RefreshAheadCache(new CoalescingCache(store, Duration.ofSeconds(1)), store, TTL,
+				REFRESH_WINDOW, executor);
+		cache.setLoader(this::load);
+		cache.put("k", "v0");
+		return cache;
+	}
+
+	private Map<?, ?> load(Set<Object> keys) {
+		loaded.add(keys);
+		return Collections.singletonMap("k", "v" + loaded.size());
+	}
+
+	private String callerLoad() {
+		return "caller" + callerLoads.incrementAndGet();
+	}
+
+	private void advance(long seconds) {
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+	}
+
+	@Test
+	public void doesNotReloadFreshEntries() {
+		RefreshAheadCache cache = cache(reloads::add);
+		advance(7);
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v0");
+		assertThat(reloads).isEmpty();
+	}
+
+	@Test
+	public void servesEntriesInTheRefreshWindowAndReloadsThemWithTheLoader() {
+		RefreshAheadCache cache = cache(reloads::add);
+		advance(9);
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v0");
+		assertThat(reloads).hasSize(1);
+		reloads.get(0).run();
+		assertThat(loaded).containsExactly(Collections.singleton("k"));
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v1");
+		assertThat(callerLoads).hasValue(0);
+		assertThat(cache.getRefreshCount()).isEqualTo(1);
+		assertThat(cache.getStaleHitCount()).isZero();
+	}
+
+	@Test
+	public void servesStaleEntriesUntilMaxStaleness() {
+		RefreshAheadCache cache = cache(reloads::add);
+		advance(14);
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v0");
+		assertThat(cache.getStaleHitCount()).isEqualTo(1);
+		// callers without a loader could not reload it
+		assertThat(cache.get("k")).isNull();
+		assertThat(cache.get("k", String.class)).isNull();
+		assertThat(callerLoads).hasValue(0);
+	}
+
+	@Test
+	public void loadsEntriesPastMaxStalenessInTheCaller() {
+		RefreshAheadCache cache = cache(reloads::add);
+		advance(15);
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("caller1");
+		assertThat(reloads).isEmpty();
+		assertThat(cache.getStaleHitCount()).isZero();
+	}
+
+	@Test
+	public void reloadsEachKeyOnceAtATime() {
+		RefreshAheadCache cache = cache(reloads::add);
+		advance(12);
+		for (int i = 0; i < 3; i++) {
+			assertThat(cache.get("k", this::callerLoad)).isEqualTo("v0");
+		}
+		assertThat(cache.getAll(Collections.singleton("k"), keys -> {
+			throw new AssertionError("k is present");
+		})).containsEntry("k", "v0");
+		assertThat(reloads).hasSize(1);
+		reloads.get(0).run();
+		assertThat(loaded).hasSize(1);
+		// the reload wrote a fresh entry, so the next access does not reload it again
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v1");
+		assertThat(reloads).hasSize(1);
+	}
+
+	@Test
+	public void dropsReloadsTheExecutorRejects() {
+		RefreshAheadCache cache = cache(task -> {
+			throw new RejectedExecutionException("full");
+		});
+		advance(12);
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v0");
+		assertThat(cache.getDroppedRefreshCount()).isEqualTo(1);
+		// the key is not left marked as reloading, so the next access tries again
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v0");
+		assertThat(cache.getDroppedRefreshCount()).isEqualTo(2);
+		assertThat(loaded).isEmpty();
+		assertThat(callerLoads).hasValue(0);
+	}
+
+	@Test
+	public void keepsTheEntryWhenTheReloadFails() {
+		RefreshAheadCache cache = cache(reloads::add);
+		cache.setLoader(keys -> {
+			throw new IllegalStateException("backend down");
+		});
+		advance(12);
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v0");
+		reloads.get(0).run();
+		assertThat(cache.getDroppedRefreshCount()).isEqualTo(1);
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v0");
+		assertThat(reloads).hasSize(2);
+	}
+
+	@Test
+	public void loadsStaleEntriesInTheCallerWithoutALoader() {
+		RefreshAheadCache cache = cache(reloads::add);
+		cache.setLoader(null);
+		advance(9);
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("v0");
+		advance(2);
+		assertThat(cache.get("k", this::callerLoad)).isEqualTo("caller1");
+		assertThat(reloads).isEmpty();
+	}
+
+}
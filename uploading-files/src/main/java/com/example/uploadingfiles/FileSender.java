@@ -0,0 +1,181 @@
+package com.example.uploadingfiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+/**
+ * Writes a file, or the byte ranges of it that the request asks for, to the
+ * response. Whole files and single ranges are handed to Tomcat's sendfile
+ * support when the connector offers it, so the kernel copies them to the
+ * socket; otherwise, and for multipart/byteranges responses, the file is
+ * transferred from its FileChannel without going through a Resource.
+ */
+final class FileSender {
+
+	// the request attributes of Tomcat's sendfile support, see its DefaultServlet
+	private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	// smaller files are cheaper to copy than to hand over, like the DefaultServlet default
+	private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+	private FileSender() {
+	}
+
+	/**
+	 * Sends the file with a 200, or the ranges of a satisfiable Range header with
+	 * a 206. A Range header is ignored when an If-Range header does not match the
+	 * file, so a resumed download starts over when the file changed.
+	 *
+	 * @param etag         the strong entity tag of the file, quoted
+	 * @param lastModified the last modification time of the file
+	 */
+	static void send(HttpServletRequest request, HttpServletResponse response, Path file, long length,
+			String etag, long lastModified, MediaType contentType) throws IOException {
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		List<long[]> ranges = new ArrayList<>();
+		String range = request.getHeader(HttpHeaders.RANGE);
+		if (range != null && matchesIfRange(request, etag, lastModified)) {
+			try {
+				for (HttpRange httpRange : HttpRange.parseRanges(range)) {
+					long start = httpRange.getRangeStart(length);
+					if (start < length) {
+						ranges.add(new long[] { start, httpRange.getRangeEnd(length) });
+					}
+				}
+			} catch (IllegalArgumentException e) {
+				// malformed ranges are ignored
+				ranges.clear();
+				range = null;
+			}
+			if (range != null && ranges.isEmpty()) {
+				response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+				return;
+			}
+			// many or overlapping ranges that add up to more than the file get the file
+			if (ranges.stream().mapToLong(r -> r[1] - r[0] + 1).sum() > length) {
+				ranges.clear();
+			}
+		}
+		boolean head = HttpMethod.HEAD.matches(request.getMethod());
+		if (ranges.isEmpty()) {
+			response.setStatus(HttpServletResponse.SC_OK);
+			response.setContentType(contentType.toString());
+			response.setContentLengthLong(length);
+			if (!head) {
+				sendRange(request, response, file, 0, length);
+			}
+		} else if (ranges.size() == 1) {
+			long start = ranges.get(0)[0];
+			long end = ranges.get(0)[1];
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setContentType(contentType.toString());
+			response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, length));
+			response.setContentLengthLong(end - start + 1);
+			if (!head) {
+				sendRange(request, response, file, start, end - start + 1);
+			}
+		} else {
+			sendRanges(response, file, length, ranges, contentType, head);
+		}
+	}
+
+	// If-Range holds either an entity tag or an HTTP date
+	private static boolean matchesIfRange(HttpServletRequest request, String etag, long lastModified) {
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (!StringUtils.hasText(ifRange)) {
+			return true;
+		}
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			return ifRange.equals(etag);
+		}
+		long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+		return date != -1 && date / 1000 == lastModified / 1000;
+	}
+
+	private static void sendRange(HttpServletRequest request, HttpServletResponse response, Path file, long start,
+			long count) throws IOException {
+		if (count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+			request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START, start);
+			request.setAttribute(SENDFILE_END, start + count);
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			transfer(channel, start, count, Channels.newChannel(response.getOutputStream()));
+		}
+	}
+
+	private static void sendRanges(HttpServletResponse response, Path file, long length, List<long[]> ranges,
+			MediaType contentType, boolean head) throws IOException {
+		String boundary = UUID.randomUUID().toString();
+		List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+		long contentLength = 0;
+		for (long[] range : ranges) {
+			byte[] partHeader = ("\r\n--" + boundary + "\r\n" + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+					+ HttpHeaders.CONTENT_RANGE + ": " + contentRange(range[0], range[1], length) + "\r\n\r\n")
+							.getBytes(StandardCharsets.US_ASCII);
+			partHeaders.add(partHeader);
+			contentLength += partHeader.length + range[1] - range[0] + 1;
+		}
+		byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+		contentLength += end.length;
+
+		response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		response.setContentType("multipart/byteranges; boundary=" + boundary);
+		response.setContentLengthLong(contentLength);
+		if (head) {
+			return;
+		}
+		OutputStream out = response.getOutputStream();
+		WritableByteChannel target = Channels.newChannel(out);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			for (int i = 0; i < ranges.size(); i++) {
+				out.write(partHeaders.get(i));
+				transfer(channel, ranges.get(i)[0], ranges.get(i)[1] - ranges.get(i)[0] + 1, target);
+			}
+		}
+		out.write(end);
+	}
+
+	private static void transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+			throws IOException {
+		long end = position + count;
+		while (position < end) {
+			long transferred = channel.transferTo(position, end - position, target);
+			if (transferred <= 0) {
+				throw new IOException("File ended at " + position + " of " + end + " bytes, it was changed");
+			}
+			position += transferred;
+		}
+	}
+
+	private static String contentRange(long start, long end, long length) {
+		return "bytes " + start + "-" + end + "/" + length;
+	}
+
+}
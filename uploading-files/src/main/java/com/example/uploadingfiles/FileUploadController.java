@@ -1,11 +1,31 @@
 package com.example.uploadingfiles;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.fileupload.FileCountLimitExceededException;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,33 +33,69 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.MvcUriComponentsBuilder;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
+import com.example.uploadingfiles.storage.FileSort;
 import com.example.uploadingfiles.storage.StorageFileNotFoundException;
+import com.example.uploadingfiles.storage.StorageProperties;
 import com.example.uploadingfiles.storage.StorageService;
+import com.example.uploadingfiles.storage.StorageSizeLimitExceededException;
+import com.example.uploadingfiles.storage.StoredFile;
+import com.example.uploadingfiles.storage.StoredFilePage;
 
 @Controller
 public class FileUploadController {
 
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	// an entity tag, a weak one with its W/ prefix, or *
+	private static final Pattern ENTITY_TAG = Pattern.compile("\\*|(?:W/)?\"[^\"]*\"");
+
 	private final StorageService storageService;
 
+	private final long maxFileCount;
+
+	// the path of serveFile up to the file name, so links need no reflection per file
+	private final String filesPath;
+
 	@Autowired
-	public FileUploadController(StorageService storageService) {
+	public FileUploadController(StorageService storageService, StorageProperties properties) {
 		this.storageService = storageService;
+		this.maxFileCount = properties.getMaxFileCount();
+		this.filesPath = MvcUriComponentsBuilder
+				.fromMethodName(UriComponentsBuilder.newInstance(), FileUploadController.class, "serveFile", "")
+				.build().getPath();
 	}
 
+	/**
+	 * Lists a page of the stored files from the index of the storage service, in
+	 * the order given by sort (name, size or uploaded) and dir (asc or desc).
+	 */
 	@GetMapping("/")
-	public String listUploadedFiles(Model model) throws IOException {
-		model.addAttribute("files",
-				storageService.loadAll()
-						.map(path -> MvcUriComponentsBuilder
-								.fromMethodName(FileUploadController.class, "serveFile", path.getFileName().toString())
-								.build().toUri().toString())
-						.collect(Collectors.toList()));
+	public String listUploadedFiles(Model model, @RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "100") int size, @RequestParam(defaultValue = "name") String sort,
+			@RequestParam(defaultValue = "asc") String dir) {
+		FileSort fileSort = FileSort.of(sort);
+		boolean descending = "desc".equalsIgnoreCase(dir);
+		StoredFilePage files = storageService.loadPage(fileSort, descending, Math.max(page, 0),
+				Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+		String prefix = ServletUriComponentsBuilder.fromCurrentServletMapping().path(filesPath).toUriString();
+		model.addAttribute("files", files.getFiles().stream()
+				.map(file -> prefix + UriUtils.encodePathSegment(file.getFilename(), StandardCharsets.UTF_8))
+				.collect(Collectors.toList()));
+		model.addAttribute("page", files);
+		model.addAttribute("sort", fileSort.name().toLowerCase(Locale.ROOT));
+		model.addAttribute("dir", descending ? "desc" : "asc");
 		return "uploadForm";
 	}
 
@@ -52,6 +108,51 @@ public class FileUploadController {
 				.body(file);
 	}
 
+	/**
+	 * Serves a file for resumable downloads and caches: the ETag is the SHA-256
+	 * of the content, conditional requests get a 304 or 412, and Range requests a
+	 * 206 with one or more byte ranges. The content is sent with sendfile when the
+	 * container supports it.
+	 */
+	@RequestMapping(path = "/download/{filename:.+}", method = { RequestMethod.GET, RequestMethod.HEAD })
+	public void downloadFile(@PathVariable String filename, ServletWebRequest webRequest, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		StoredFile file = storageService.loadMetadata(filename);
+		String etag = "\"" + file.getSha256() + "\"";
+		if (!matchesIfMatch(request, etag)) {
+			response.setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+			return;
+		}
+		// answers If-None-Match, If-Modified-Since and If-Unmodified-Since, and adds the ETag
+		// and Last-Modified headers
+		if (webRequest.checkNotModified(etag, file.getLastModified())) {
+			return;
+		}
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				ContentDisposition.builder("attachment").filename(file.getFilename()).build().toString());
+		MediaType contentType = MediaTypeFactory.getMediaType(file.getFilename())
+				.orElse(MediaType.APPLICATION_OCTET_STREAM);
+		FileSender.send(request, response, storageService.load(filename), file.getSize(), etag,
+				file.getLastModified(), contentType);
+	}
+
+	// If-Match compares strongly, so weak entity tags never match
+	private static boolean matchesIfMatch(HttpServletRequest request, String etag) {
+		Enumeration<String> ifMatch = request.getHeaders(HttpHeaders.IF_MATCH);
+		if (ifMatch == null || !ifMatch.hasMoreElements()) {
+			return true;
+		}
+		while (ifMatch.hasMoreElements()) {
+			Matcher tags = ENTITY_TAG.matcher(ifMatch.nextElement());
+			while (tags.find()) {
+				if (tags.group().equals("*") || tags.group().equals(etag)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	@PostMapping("/")
 	public String handleFileUpload(@RequestParam("file") MultipartFile file, RedirectAttributes redirectAttributes) {
 		storageService.store(file);
@@ -60,6 +161,56 @@ public class FileUploadController {
 		return "redirect:/";
 	}
 
+	/**
+	 * Streams every file of a multipart request into storage while the request
+	 * is read, so uploads are neither buffered in memory nor spooled to a
+	 * temporary file first, and are only limited by storage.max-file-size and
+	 * storage.max-file-count. This relies on spring.servlet.multipart.resolve-lazily, which keeps the servlet
+	 * container from parsing the request before it gets here.
+	 */
+	@PostMapping("/upload")
+	@ResponseBody
+	public ResponseEntity<List<StoredFile>> handleStreamingUpload(HttpServletRequest request)
+			throws IOException, FileUploadException {
+		if (!ServletFileUpload.isMultipartContent(request)) {
+			return ResponseEntity.badRequest().build();
+		}
+		List<StoredFile> files = new ArrayList<>();
+		ServletFileUpload upload = new ServletFileUpload();
+		upload.setFileCountMax(maxFileCount);
+		FileItemIterator items = upload.getItemIterator(request);
+		long count = 0;
+		while (items.hasNext()) {
+			FileItemStream item = items.next();
+			// only parseRequest enforces the limit, the iterator leaves it to its caller
+			if (++count > upload.getFileCountMax()) {
+				throw new FileCountLimitExceededException(
+						"Request has more than " + upload.getFileCountMax() + " parts", upload.getFileCountMax());
+			}
+			if (!item.isFormField()) {
+				try (InputStream content = item.openStream()) {
+					files.add(storageService.store(item.getName(), content));
+				}
+			}
+		}
+		return ResponseEntity.ok(files);
+	}
+
+	@ExceptionHandler(StorageSizeLimitExceededException.class)
+	public ResponseEntity<?> handleStorageSizeLimitExceeded(StorageSizeLimitExceededException exc) {
+		return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+	}
+
+	@ExceptionHandler(FileCountLimitExceededException.class)
+	public ResponseEntity<?> handleFileCountLimitExceeded(FileCountLimitExceededException exc) {
+		return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+	}
+
+	@ExceptionHandler(FileUploadException.class)
+	public ResponseEntity<?> handleFileUpload(FileUploadException exc) {
+		return ResponseEntity.badRequest().build();
+	}
+
 	@ExceptionHandler(StorageFileNotFoundException.class)
 	public ResponseEntity<?> handleStorageFileNotFound(StorageFileNotFoundException exc) {
 		return ResponseEntity.notFound().build();
@@ -0,0 +1,224 @@
+package com.example.uploadingfiles.storage;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The metadata of the files in the storage folder, so listing them costs no
+ * file system calls. The storage service adds the files it stores, and a
+ * WatchService thread picks up files that are added, changed or removed by
+ * anything else. Those are indexed without a digest, which the storage service
+ * computes the first time it is asked for.
+ *
+ * Each order is sorted once per change of the index and then shared by all
+ * pages, whichever direction they are read in.
+ */
+final class FileIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(FileIndex.class);
+
+	private final Path root;
+
+	private final String ignoredPrefix;
+
+	private final ConcurrentMap<String, StoredFile> files = new ConcurrentHashMap<>();
+
+	private final AtomicLong version = new AtomicLong();
+
+	private final Map<FileSort, Sorted> sorted = new EnumMap<>(FileSort.class);
+
+	private WatchService watchService;
+
+	/**
+	 * @param root          the folder of the files
+	 * @param ignoredPrefix the prefix of the names of files that are not indexed
+	 */
+	FileIndex(Path root, String ignoredPrefix) {
+		this.root = root;
+		this.ignoredPrefix = ignoredPrefix;
+	}
+
+	/**
+	 * Indexes the files of the folder, keeping the digests of those that did not
+	 * change, and watches it for changes from now on.
+	 */
+	synchronized void open() throws IOException {
+		close();
+		watchService = root.getFileSystem().newWatchService();
+		// registered before the scan, so no change falls between them
+		root.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+		rebuild();
+		WatchService watching = watchService;
+		Thread watcher = new Thread(() -> watch(watching), "storage-watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+	}
+
+	synchronized void close() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				logger.warn("Failed to close the watch service of {}", root, e);
+			}
+			watchService = null;
+		}
+	}
+
+	void clear() {
+		files.clear();
+		version.incrementAndGet();
+	}
+
+	StoredFile get(String filename) {
+		return files.get(filename);
+	}
+
+	void put(StoredFile file) {
+		files.put(file.getFilename(), file);
+		version.incrementAndGet();
+	}
+
+	/**
+	 * Returns the files of the given page in the given order.
+	 */
+	StoredFilePage page(FileSort sort, boolean descending, int number, int size) {
+		StoredFile[] all = sorted(sort);
+		int from = (int) Math.min(all.length, (long) number * size);
+		int to = (int) Math.min(all.length, (long) from + size);
+		List<StoredFile> page = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			page.add(all[descending ? all.length - 1 - i : i]);
+		}
+		return new StoredFilePage(page, number, size, all.length);
+	}
+
+	private StoredFile[] sorted(FileSort sort) {
+		long current = version.get();
+		synchronized (sorted) {
+			Sorted cached = sorted.get(sort);
+			if (cached == null || cached.version != current) {
+				StoredFile[] all = files.values().toArray(new StoredFile[0]);
+				Arrays.sort(all, sort.comparator());
+				cached = new Sorted(current, all);
+				sorted.put(sort, cached);
+			}
+			return cached.files;
+		}
+	}
+
+	/**
+	 * Indexes the files of the folder and drops the files that are gone, as
+	 * {@link #open()} does and the watcher does when it missed events.
+	 */
+	void rebuild() throws IOException {
+		Set<String> found = new HashSet<>();
+		try (DirectoryStream<Path> directory = Files.newDirectoryStream(root)) {
+			for (Path file : directory) {
+				String filename = file.getFileName().toString();
+				found.add(filename);
+				refresh(filename);
+			}
+		}
+		if (files.keySet().retainAll(found)) {
+			version.incrementAndGet();
+		}
+	}
+
+	private void watch(WatchService watching) {
+		try {
+			while (true) {
+				WatchKey key = watching.take();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == OVERFLOW) {
+						logger.info("Missed changes to {}, indexing it again", root);
+						rebuild();
+					} else {
+						refresh(event.context().toString());
+					}
+				}
+				if (!key.reset()) {
+					logger.info("Stopped watching {}, it is no longer accessible", root);
+					return;
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// closed
+		} catch (IOException e) {
+			logger.warn("Stopped watching {}", root, e);
+		}
+	}
+
+	/**
+	 * Indexes the file as it is now, or drops it if it is gone, as the watcher
+	 * does for each event. The digest of an unchanged file is kept, that of a
+	 * changed one is computed when needed.
+	 */
+	void refresh(String filename) {
+		if (filename.startsWith(ignoredPrefix)) {
+			return;
+		}
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(root.resolve(filename), BasicFileAttributes.class);
+			if (!attributes.isRegularFile()) {
+				remove(filename);
+				return;
+			}
+			long lastModified = attributes.lastModifiedTime().toMillis();
+			StoredFile known = files.get(filename);
+			if (known == null || known.getSize() != attributes.size() || known.getLastModified() != lastModified) {
+				put(new StoredFile(filename, attributes.size(), lastModified, null));
+			}
+		} catch (NoSuchFileException e) {
+			remove(filename);
+		} catch (IOException e) {
+			logger.warn("Failed to index {}", filename, e);
+		}
+	}
+
+	private void remove(String filename) {
+		if (files.remove(filename) != null) {
+			version.incrementAndGet();
+		}
+	}
+
+	private static class Sorted {
+
+		final long version;
+
+		final StoredFile[] files;
+
+		Sorted(long version, StoredFile[] files) {
+			this.version = version;
+			this.files = files;
+		}
+
+	}
+
+}
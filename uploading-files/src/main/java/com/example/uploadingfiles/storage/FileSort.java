@@ -0,0 +1,41 @@
+package com.example.uploadingfiles.storage;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * The orders in which stored files can be listed. Ties are broken by name, so
+ * pages do not overlap.
+ */
+public enum FileSort {
+
+	NAME(Comparator.comparing(StoredFile::getFilename)),
+
+	SIZE(Comparator.comparingLong(StoredFile::getSize).thenComparing(StoredFile::getFilename)),
+
+	UPLOADED(Comparator.comparingLong(StoredFile::getLastModified).thenComparing(StoredFile::getFilename));
+
+	private final Comparator<StoredFile> comparator;
+
+	FileSort(Comparator<StoredFile> comparator) {
+		this.comparator = comparator;
+	}
+
+	public Comparator<StoredFile> comparator() {
+		return comparator;
+	}
+
+	/**
+	 * Returns the order of the given name, ignoring case, or NAME for an unknown
+	 * one.
+	 */
+	public static FileSort of(String name) {
+		for (FileSort sort : values()) {
+			if (sort.name().equals(name.toUpperCase(Locale.ROOT))) {
+				return sort;
+			}
+		}
+		return NAME;
+	}
+
+}
@@ -3,12 +3,22 @@ package com.example.uploadingfiles.storage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
 import java.util.stream.Stream;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -18,44 +28,182 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
-public class FileSystemStorageService implements StorageService {
+public class FileSystemStorageService implements StorageService, DisposableBean {
+
+	// files being written are hidden until they are complete
+	private static final String TEMP_PREFIX = ".upload-";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
 
 	private final Path rootLocation;
 
+	private final long maxFileSize;
+
+	private final FileIndex index;
+
 	@Autowired
 	public FileSystemStorageService(StorageProperties properties) {
 		this.rootLocation = Paths.get(properties.getLocation());
+		this.maxFileSize = properties.getMaxFileSize().toBytes();
+		this.index = new FileIndex(this.rootLocation, TEMP_PREFIX);
 	}
 
 	@Override
 	public void store(MultipartFile file) {
 		String filename = StringUtils.cleanPath(file.getOriginalFilename());
+		if (file.isEmpty()) {
+			throw new StorageException("Failed to store empty file " + filename);
+		}
+		try (InputStream inputStream = file.getInputStream()) {
+			store(filename, inputStream);
+		} catch (IOException e) {
+			throw new StorageException("Failed to store file " + filename, e);
+		}
+	}
+
+	/**
+	 * Copies the content through a fixed buffer into a temporary file in the
+	 * storage folder, hashing it on the way, and then moves the file to its name.
+	 * Readers never see a partly written file, and a failed upload leaves the
+	 * previous file of that name in place.
+	 */
+	@Override
+	public StoredFile store(String name, InputStream content) {
+		String filename = StringUtils.cleanPath(name == null ? "" : name);
+		if (filename.isEmpty()) {
+			throw new StorageException("Cannot store file without a name");
+		}
+		if (filename.contains("..")) {
+			// This is a security check
+			throw new StorageException("Cannot store file with relative path outside current directory " + filename);
+		}
+		// the name comes from the client as is, so it may be absolute or name a sub-directory
+		Path target = this.rootLocation.resolve(filename).normalize().toAbsolutePath();
+		if (!this.rootLocation.toAbsolutePath().normalize().equals(target.getParent())) {
+			throw new StorageException("Cannot store file outside the storage directory " + filename);
+		}
+		Path temp = null;
 		try {
-			if (file.isEmpty()) {
-				throw new StorageException("Failed to store empty file " + filename);
-			}
-			if (filename.contains("..")) {
-				// This is a security check
-				throw new StorageException(
-						"Cannot store file with relative path outside current directory " + filename);
+			// unlike Files.createTempFile this keeps the default permissions of new files
+			temp = this.rootLocation.resolve(TEMP_PREFIX + UUID.randomUUID() + ".tmp");
+			MessageDigest digest = sha256();
+			long size = 0;
+			byte[] buffer = new byte[BUFFER_SIZE];
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE)) {
+				int read;
+				while ((read = content.read(buffer)) != -1) {
+					size += read;
+					if (size > this.maxFileSize) {
+						throw new StorageSizeLimitExceededException(
+								"Failed to store file " + filename + ", it is larger than " + this.maxFileSize + " bytes");
+					}
+					digest.update(buffer, 0, read);
+					ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+					while (bytes.hasRemaining()) {
+						channel.write(bytes);
+					}
+				}
 			}
-			try (InputStream inputStream = file.getInputStream()) {
-				Files.copy(inputStream, this.rootLocation.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+			if (size == 0) {
+				throw new StorageException("Failed to store empty file " + filename);
 			}
+			move(temp, target);
+			StoredFile stored = new StoredFile(filename, size, Files.getLastModifiedTime(target).toMillis(),
+					toHex(digest.digest()));
+			this.index.put(stored);
+			return stored;
 		} catch (IOException e) {
 			throw new StorageException("Failed to store file " + filename, e);
+		} finally {
+			deleteQuietly(temp);
 		}
 	}
 
+	/**
+	 * Returns the metadata recorded when the file was stored, or hashes the file
+	 * if it changed since or was not stored by this service. The digest is kept
+	 * in the index for as long as the size and modification time match.
+	 */
 	@Override
-	public Stream<Path> loadAll() {
+	public StoredFile loadMetadata(String filename) {
+		Path file = load(filename);
 		try {
-			return Files.walk(this.rootLocation, 1).filter(path -> !path.equals(this.rootLocation))
-					.map(this.rootLocation::relativize);
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			if (!attributes.isRegularFile()) {
+				throw new StorageFileNotFoundException("Could not read file: " + filename);
+			}
+			long lastModified = attributes.lastModifiedTime().toMillis();
+			StoredFile stored = this.index.get(filename);
+			if (stored == null || stored.getSha256() == null || stored.getSize() != attributes.size()
+					|| stored.getLastModified() != lastModified) {
+				stored = new StoredFile(filename, attributes.size(), lastModified, hash(file));
+				this.index.put(stored);
+			}
+			return stored;
+		} catch (NoSuchFileException e) {
+			throw new StorageFileNotFoundException("Could not read file: " + filename, e);
 		} catch (IOException e) {
-			throw new StorageException("Failed to read stored files", e);
+			throw new StorageException("Failed to read file " + filename, e);
+		}
+	}
+
+	private static String hash(Path file) throws IOException {
+		MessageDigest digest = sha256();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream content = Files.newInputStream(file)) {
+			int read;
+			while ((read = content.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
 		}
+		return toHex(digest.digest());
+	}
 
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void deleteQuietly(Path temp) {
+		if (temp != null) {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException e) {
+				// left for deleteAll
+			}
+		}
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+
+	@Override
+	public Stream<Path> loadAll() {
+		StoredFilePage all = this.index.page(FileSort.NAME, false, 0, Integer.MAX_VALUE);
+		return all.getFiles().stream().map(file -> Paths.get(file.getFilename()));
+	}
+
+	@Override
+	public StoredFilePage loadPage(FileSort sort, boolean descending, int page, int size) {
+		return this.index.page(sort, descending, page, size);
 	}
 
 	@Override
@@ -81,6 +229,8 @@ public class FileSystemStorageService implements StorageService {
 
 	@Override
 	public void deleteAll() {
+		index.close();
+		index.clear();
 		FileSystemUtils.deleteRecursively(rootLocation.toFile());
 	}
 
@@ -88,8 +238,14 @@ public class FileSystemStorageService implements StorageService {
 	public void init() {
 		try {
 			Files.createDirectories(rootLocation);
+			index.open();
 		} catch (IOException e) {
 			throw new StorageException("Could not initialize storage", e);
 		}
 	}
+
+	@Override
+	public void destroy() {
+		index.close();
+	}
 }
@@ -1,6 +1,7 @@
 package com.example.uploadingfiles.storage;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 @ConfigurationProperties("storage")
 public class StorageProperties {
@@ -10,6 +11,18 @@ public class StorageProperties {
 	 */
 	private String location = "upload-dir";
 
+	/**
+	 * Largest file the storage service accepts, uploads that exceed it are
+	 * rejected while they are read
+	 */
+	private DataSize maxFileSize = DataSize.ofGigabytes(8);
+
+	/**
+	 * Most parts a streamed upload may have, form fields included, requests with
+	 * more are rejected
+	 */
+	private long maxFileCount = 100;
+
 	public String getLocation() {
 		return location;
 	}
@@ -18,4 +31,20 @@ public class StorageProperties {
 		this.location = location;
 	}
 
+	public DataSize getMaxFileSize() {
+		return maxFileSize;
+	}
+
+	public void setMaxFileSize(DataSize maxFileSize) {
+		this.maxFileSize = maxFileSize;
+	}
+
+	public long getMaxFileCount() {
+		return maxFileCount;
+	}
+
+	public void setMaxFileCount(long maxFileCount) {
+		this.maxFileCount = maxFileCount;
+	}
+
 }
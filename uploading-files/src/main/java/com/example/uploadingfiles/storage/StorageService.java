@@ -3,6 +3,7 @@ package com.example.uploadingfiles.storage;
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.stream.Stream;
 
@@ -12,12 +13,33 @@ public interface StorageService {
 
 	void store(MultipartFile file);
 
+	/**
+	 * Stores the content read from the stream under the given name, without
+	 * holding more than a small buffer of it in memory. The stream is read to
+	 * its end but not closed.
+	 */
+	StoredFile store(String filename, InputStream content);
+
 	Stream<Path> loadAll();
 
+	/**
+	 * Returns a page of the stored files, without reading the storage itself.
+	 *
+	 * @param page the number of the page, from 0
+	 * @param size the number of files per page
+	 */
+	StoredFilePage loadPage(FileSort sort, boolean descending, int page, int size);
+
 	Path load(String filename);
 
 	Resource loadAsResource(String filename);
 
+	/**
+	 * Describes a stored file. The digest is computed once per version of the
+	 * file, so this is cheap enough to call for every download.
+	 */
+	StoredFile loadMetadata(String filename);
+
 	void deleteAll();
 
 }
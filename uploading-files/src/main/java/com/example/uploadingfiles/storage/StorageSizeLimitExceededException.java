@@ -0,0 +1,11 @@
+package com.example.uploadingfiles.storage;
+
+public class StorageSizeLimitExceededException extends StorageException {
+
+	private static final long serialVersionUID = -2818446201743362395L;
+
+	public StorageSizeLimitExceededException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.example.uploadingfiles.storage;
+
+/**
+ * What the storage service knows about a file it stored: its name, its size in
+ * bytes, its last modification time and the hex encoded SHA-256 digest of its
+ * content.
+ */
+public class StoredFile {
+
+	private final String filename;
+
+	private final long size;
+
+	private final long lastModified;
+
+	private final String sha256;
+
+	public StoredFile(String filename, long size, long lastModified, String sha256) {
+		this.filename = filename;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.sha256 = sha256;
+	}
+
+	public String getFilename() {
+		return filename;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the last modification time in milliseconds since the epoch
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	public String getSha256() {
+		return sha256;
+	}
+
+	@Override
+	public String toString() {
+		return "StoredFile [filename=" + filename + ", size=" + size + ", lastModified=" + lastModified + ", sha256=" + sha256 + "]";
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.example.uploadingfiles.storage;
+
+import java.util.List;
+
+/**
+ * One page of the stored files, numbered from 0.
+ */
+public class StoredFilePage {
+
+	private final List<StoredFile> files;
+
+	private final int number;
+
+	private final int size;
+
+	private final int totalFiles;
+
+	public StoredFilePage(List<StoredFile> files, int number, int size, int totalFiles) {
+		this.files = files;
+		this.number = number;
+		this.size = size;
+		this.totalFiles = totalFiles;
+	}
+
+	public List<StoredFile> getFiles() {
+		return files;
+	}
+
+	public int getNumber() {
+		return number;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getTotalFiles() {
+		return totalFiles;
+	}
+
+	public int getTotalPages() {
+		return (int) ((totalFiles + (long) size - 1) / size);
+	}
+
+	public boolean hasPrevious() {
+		return number > 0;
+	}
+
+	public boolean hasNext() {
+		return number + 1 < getTotalPages();
+	}
+
+}
@@ -1,5 +1,8 @@
 package com.example.uploadingfiles;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,18 +16,26 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
 
 import com.example.uploadingfiles.storage.StorageService;
+import com.example.uploadingfiles.storage.StorageSizeLimitExceededException;
+import com.example.uploadingfiles.storage.StoredFile;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "storage.max-file-count=2")
 public class FileUploadIntegrationTests {
 
+	// of "Spring Framework", the content of testupload.txt
+	private static final String SHA256 = "6e08f7d0fd517f4df55a15a4ff76b91e0c7d7a7df19dd8c3836f480b272dbd94";
+
 	@Autowired
 	private TestRestTemplate restTemplate;
 
@@ -47,6 +58,54 @@ public class FileUploadIntegrationTests {
 		then(storageService).should().store(any(MultipartFile.class));
 	}
 
+	@Test
+	public void shouldStreamUploadedFile() throws Exception {
+		ClassPathResource resource = new ClassPathResource("testupload.txt", getClass());
+		// the storage service computes the digest, see FileSystemStorageServiceTests, the
+		// controller reports what it returns for the content it was given
+		given(this.storageService.store(eq("testupload.txt"), any(InputStream.class))).willAnswer(invocation -> {
+			String content = StreamUtils.copyToString(invocation.getArgument(1), StandardCharsets.UTF_8);
+			assertThat(content).isEqualTo("Spring Framework");
+			return new StoredFile("testupload.txt", content.length(), 0, SHA256);
+		});
+
+		MultiValueMap<String, Object> map = new LinkedMultiValueMap<String, Object>();
+		map.add("file", resource);
+		ResponseEntity<String> response = this.restTemplate.postForEntity("/upload", map, String.class);
+
+		assertThat(response.getStatusCode()).isEqualByComparingTo(HttpStatus.OK);
+		assertThat(response.getBody()).contains("\"size\":16", "\"sha256\":\"" + SHA256 + "\"");
+	}
+
+	@Test
+	public void shouldRejectTooLargeStreamedFile() throws Exception {
+		ClassPathResource resource = new ClassPathResource("testupload.txt", getClass());
+		given(this.storageService.store(eq("testupload.txt"), any(InputStream.class)))
+				.willThrow(new StorageSizeLimitExceededException("too large"));
+
+		MultiValueMap<String, Object> map = new LinkedMultiValueMap<String, Object>();
+		map.add("file", resource);
+		ResponseEntity<String> response = this.restTemplate.postForEntity("/upload", map, String.class);
+
+		assertThat(response.getStatusCode()).isEqualByComparingTo(HttpStatus.PAYLOAD_TOO_LARGE);
+	}
+
+	@Test
+	public void shouldRejectStreamedRequestWithTooManyParts() throws Exception {
+		ClassPathResource resource = new ClassPathResource("testupload.txt", getClass());
+		given(this.storageService.store(eq("testupload.txt"), any(InputStream.class)))
+				.willReturn(new StoredFile("testupload.txt", 16, 0, null));
+
+		MultiValueMap<String, Object> map = new LinkedMultiValueMap<String, Object>();
+		map.add("file", resource);
+		map.add("file", resource);
+		map.add("file", resource);
+		ResponseEntity<String> response = this.restTemplate.postForEntity("/upload", map, String.class);
+
+		assertThat(response.getStatusCode()).isEqualByComparingTo(HttpStatus.PAYLOAD_TOO_LARGE);
+		then(storageService).should(times(2)).store(eq("testupload.txt"), any(InputStream.class));
+	}
+
 	@Test
 	public void shouldDownloadFile() throws Exception {
 		ClassPathResource resource = new ClassPathResource("testupload.txt", getClass());
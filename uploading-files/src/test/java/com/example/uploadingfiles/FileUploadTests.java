@@ -1,6 +1,7 @@
 package com.example.uploadingfiles;
 
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.hamcrest.Matchers;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -17,13 +19,18 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 // import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.fileUpload;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.uploadingfiles.storage.FileSort;
 import com.example.uploadingfiles.storage.StorageFileNotFoundException;
 import com.example.uploadingfiles.storage.StorageService;
+import com.example.uploadingfiles.storage.StoredFile;
+import com.example.uploadingfiles.storage.StoredFilePage;
 
 @AutoConfigureMockMvc
 @SpringBootTest
@@ -37,11 +44,29 @@ public class FileUploadTests {
 
 	@Test
 	public void shouldListAllFiles() throws Exception {
-		given(this.storageService.loadAll()).willReturn(Stream.of(Paths.get("first.txt"), Paths.get("second.txt")));
+		given(this.storageService.loadPage(FileSort.NAME, false, 0, 100))
+				.willReturn(page(0, 100, 2, "first.txt", "second.txt"));
 		this.mvc.perform(get("/")).andExpect(status().isOk()).andExpect(model().attribute("files",
 				Matchers.contains("http://localhost/files/first.txt", "http://localhost/files/second.txt")));
 	}
 
+	@Test
+	public void shouldListRequestedPage() throws Exception {
+		given(this.storageService.loadPage(FileSort.SIZE, true, 1, 2))
+				.willReturn(page(1, 2, 5, "large file.txt", "small.txt"));
+		this.mvc.perform(get("/").param("page", "1").param("size", "2").param("sort", "size").param("dir", "desc"))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("files",
+						Matchers.contains("http://localhost/files/large%20file.txt", "http://localhost/files/small.txt")))
+				.andExpect(model().attribute("sort", "size")).andExpect(model().attribute("dir", "desc"))
+				.andExpect(content().string(Matchers.containsString("Page 2 of 3 (5 files)")));
+	}
+
+	private static StoredFilePage page(int number, int size, int totalFiles, String... filenames) {
+		return new StoredFilePage(Stream.of(filenames).map(filename -> new StoredFile(filename, 1, 0, null))
+				.collect(Collectors.toList()), number, size, totalFiles);
+	}
+
 	@Test
 	public void shouldSaveUploadedFile() throws Exception {
 		MockMultipartFile multipartFile = new MockMultipartFile("file", "test.txt", "text/plain",
@@ -51,6 +76,89 @@ public class FileUploadTests {
 		then(this.storageService).should().store(multipartFile);
 	}
 
+	@Test
+	public void shouldDownloadWholeFile() throws Exception {
+		givenStoredFile();
+		this.mvc.perform(get("/download/testupload.txt")).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"5pr1ng\"")).andExpect(header().string("Accept-Ranges", "bytes"))
+				.andExpect(header().longValue("Content-Length", 16))
+				.andExpect(content().string("Spring Framework"));
+	}
+
+	@Test
+	public void shouldDownloadSingleRange() throws Exception {
+		givenStoredFile();
+		this.mvc.perform(get("/download/testupload.txt").header("Range", "bytes=7-"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string("Content-Range", "bytes 7-15/16"))
+				.andExpect(content().string("Framework"));
+	}
+
+	@Test
+	public void shouldDownloadMultipleRanges() throws Exception {
+		givenStoredFile();
+		this.mvc.perform(get("/download/testupload.txt").header("Range", "bytes=0-5,-9"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string("Content-Type", Matchers.startsWith("multipart/byteranges; boundary=")))
+				.andExpect(content().string(Matchers.stringContainsInOrder("Content-Range: bytes 0-5/16", "Spring",
+						"Content-Range: bytes 7-15/16", "Framework")));
+	}
+
+	@Test
+	public void shouldRejectUnsatisfiableRange() throws Exception {
+		givenStoredFile();
+		this.mvc.perform(get("/download/testupload.txt").header("Range", "bytes=16-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string("Content-Range", "bytes */16"));
+	}
+
+	@Test
+	public void shouldDownloadWholeFileWhenIfRangeDoesNotMatch() throws Exception {
+		givenStoredFile();
+		this.mvc.perform(get("/download/testupload.txt").header("Range", "bytes=7-").header("If-Range", "\"older\""))
+				.andExpect(status().isOk()).andExpect(content().string("Spring Framework"));
+	}
+
+	@Test
+	public void shouldAnswerNotModified() throws Exception {
+		givenStoredFile();
+		this.mvc.perform(get("/download/testupload.txt").header("If-None-Match", "\"5pr1ng\""))
+				.andExpect(status().isNotModified()).andExpect(content().string(""));
+	}
+
+	@Test
+	public void shouldFailPreconditionOfChangedFile() throws Exception {
+		givenStoredFile();
+		this.mvc.perform(get("/download/testupload.txt").header("If-Match", "\"older\""))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	public void shouldMatchOnlyStrongEntityTags() throws Exception {
+		givenStoredFile();
+		this.mvc.perform(get("/download/testupload.txt").header("If-Match", "\"older\", \"5pr1ng\""))
+				.andExpect(status().isOk());
+		this.mvc.perform(get("/download/testupload.txt").header("If-Match", "*")).andExpect(status().isOk());
+		this.mvc.perform(get("/download/testupload.txt").header("If-Match", "W/\"5pr1ng\""))
+				.andExpect(status().isPreconditionFailed());
+		this.mvc.perform(get("/download/testupload.txt").header("If-Match", "\"x\"5pr1ng\"\""))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	public void shouldAnswerHeadWithoutContent() throws Exception {
+		givenStoredFile();
+		this.mvc.perform(head("/download/testupload.txt")).andExpect(status().isOk())
+				.andExpect(header().longValue("Content-Length", 16)).andExpect(content().string(""));
+	}
+
+	private void givenStoredFile() throws Exception {
+		Path file = new ClassPathResource("testupload.txt", getClass()).getFile().toPath();
+		given(this.storageService.loadMetadata("testupload.txt"))
+				.willReturn(new StoredFile("testupload.txt", 16, 1580000000000L, "5pr1ng"));
+		given(this.storageService.load("testupload.txt")).willReturn(file);
+	}
+
 	// "Unnecessary @SuppressWarnings(\"unchecked\")"
 	// @SuppressWarnings("unchecked")
 	@Test
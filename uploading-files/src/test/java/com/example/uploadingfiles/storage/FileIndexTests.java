@@ -0,0 +1,81 @@
+package com.example.uploadingfiles.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests what the watcher of a FileIndex does for its events, without waiting
+ * for the WatchService to deliver them.
+ */
+public class FileIndexTests {
+
+	@TempDir
+	Path root;
+
+	private FileIndex index;
+
+	@BeforeEach
+	public void init() {
+		index = new FileIndex(root, ".upload-");
+	}
+
+	@Test
+	public void refreshIndexesAddedFiles() throws Exception {
+		Files.write(root.resolve("foo.txt"), "Hello, World".getBytes());
+		index.refresh("foo.txt");
+		StoredFile file = index.get("foo.txt");
+		assertThat(file.getSize()).isEqualTo(12);
+		assertThat(file.getLastModified()).isEqualTo(root.resolve("foo.txt").toFile().lastModified());
+		assertThat(file.getSha256()).isNull();
+	}
+
+	@Test
+	public void refreshKeepsTheDigestOfUnchangedFiles() throws Exception {
+		Path foo = Files.write(root.resolve("foo.txt"), "Hello, World".getBytes());
+		index.put(new StoredFile("foo.txt", 12, foo.toFile().lastModified(), "digest"));
+		index.refresh("foo.txt");
+		assertThat(index.get("foo.txt").getSha256()).isEqualTo("digest");
+
+		Files.write(foo, "Hello again".getBytes());
+		index.refresh("foo.txt");
+		assertThat(index.get("foo.txt").getSize()).isEqualTo(11);
+		assertThat(index.get("foo.txt").getSha256()).isNull();
+	}
+
+	@Test
+	public void refreshDropsDeletedFiles() throws Exception {
+		Path foo = Files.write(root.resolve("foo.txt"), "Hello, World".getBytes());
+		index.refresh("foo.txt");
+		Files.delete(foo);
+		index.refresh("foo.txt");
+		assertThat(index.get("foo.txt")).isNull();
+		assertThat(index.page(FileSort.NAME, false, 0, 10).getTotalFiles()).isZero();
+	}
+
+	@Test
+	public void refreshIgnoresTemporaryFilesAndDirectories() throws Exception {
+		Files.write(root.resolve(".upload-1.tmp"), "Hello, World".getBytes());
+		Files.createDirectory(root.resolve("sub"));
+		index.refresh(".upload-1.tmp");
+		index.refresh("sub");
+		assertThat(index.page(FileSort.NAME, false, 0, 10).getTotalFiles()).isZero();
+	}
+
+	@Test
+	public void rebuildIndexesTheFolder() throws Exception {
+		Files.write(root.resolve("a.txt"), "123".getBytes());
+		Files.write(root.resolve("b.txt"), "12".getBytes());
+		Files.write(root.resolve(".upload-1.tmp"), "1".getBytes());
+		index.put(new StoredFile("gone.txt", 1, 0, null));
+		index.rebuild();
+		assertThat(index.page(FileSort.NAME, false, 0, 10).getFiles()).extracting(StoredFile::getFilename)
+				.containsExactly("a.txt", "b.txt");
+	}
+
+}
@@ -15,14 +15,28 @@
  */
 package com.example.uploadingfiles.storage;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.function.Predicate;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -42,6 +56,11 @@ public class FileSystemStorageServiceTests {
 		service.init();
 	}
 
+	@AfterEach
+	public void destroy() {
+		service.destroy();
+	}
+
 	@Test
 	public void loadNonExistent() {
 		assertThat(service.load("foo.txt")).doesNotExist();
@@ -68,4 +87,195 @@ public class FileSystemStorageServiceTests {
 				MediaType.TEXT_PLAIN_VALUE, "Hello, World".getBytes()));
 	}
 
+	@Test
+	public void streamAndLoad() throws Exception {
+		StoredFile file = service.store("foo.txt", new ByteArrayInputStream("Hello, World".getBytes()));
+		assertThat(file.getFilename()).isEqualTo("foo.txt");
+		assertThat(file.getSize()).isEqualTo(12);
+		assertThat(file.getSha256()).isEqualTo("03675ac53ff9cd1535ccc7dfcdfa2c458c5218371f418dc136f2d19ac1fbe8a5");
+		assertThat(service.load("foo.txt")).hasContent("Hello, World");
+		assertThat(service.loadAll()).containsExactly(Paths.get("foo.txt"));
+	}
+
+	@Test
+	public void streamLargerThanTheBufferWithItsSha256() throws Exception {
+		byte[] content = new byte[3 * 64 * 1024 + 123];
+		new Random(42).nextBytes(content);
+		StoredFile file = service.store("foo.bin", new ByteArrayInputStream(content));
+		assertThat(file.getSize()).isEqualTo(content.length);
+		assertThat(file.getSha256()).isEqualTo(sha256(content)).hasSize(64);
+		assertThat(Files.readAllBytes(service.load("foo.bin"))).isEqualTo(content);
+	}
+
+	@Test
+	public void streamReplacesExistingFileOnlyOnceComplete() throws Exception {
+		service.store("foo.txt", new ByteArrayInputStream("Hello, World".getBytes()));
+		Path root = Paths.get(properties.getLocation());
+		List<String> seen = new ArrayList<>();
+		InputStream content = new SequenceInputStream(new ByteArrayInputStream("Hello ".getBytes()),
+				new InputStream() {
+					private final InputStream rest = new ByteArrayInputStream("again".getBytes());
+
+					@Override
+					public int read() throws IOException {
+						if (seen.isEmpty()) {
+							// half of the upload is written, to a temporary file beside the old one
+							seen.add(new String(Files.readAllBytes(service.load("foo.txt"))));
+							seen.addAll(Arrays.asList(root.toFile().list()));
+						}
+						return rest.read();
+					}
+				});
+		service.store("foo.txt", content);
+		assertThat(seen.get(0)).isEqualTo("Hello, World");
+		assertThat(seen.subList(1, seen.size())).hasSize(2).contains("foo.txt")
+				.anySatisfy(name -> assertThat(name).startsWith(".upload-").endsWith(".tmp"));
+		assertThat(service.load("foo.txt")).hasContent("Hello again");
+		assertThat(root.toFile().list()).containsExactly("foo.txt");
+	}
+
+	@Test
+	public void streamUpToTheSizeLimit() throws Exception {
+		properties.setMaxFileSize(DataSize.ofBytes(12));
+		service = new FileSystemStorageService(properties);
+		service.store("foo.txt", new ByteArrayInputStream("Hello, World".getBytes()));
+		StorageSizeLimitExceededException exception = assertThrows(StorageSizeLimitExceededException.class,
+				() -> service.store("foo.txt", new ByteArrayInputStream("Hello, World!".getBytes())));
+		assertThat(exception).hasMessageContaining("larger than 12 bytes");
+		// the file stored before is kept, and the partial upload removed
+		assertThat(service.load("foo.txt")).hasContent("Hello, World");
+		assertThat(Paths.get(properties.getLocation()).toFile().list()).containsExactly("foo.txt");
+	}
+
+	@Test
+	public void streamReplacesExistingFile() throws Exception {
+		service.store("foo.txt", new ByteArrayInputStream("Hello, World".getBytes()));
+		service.store("foo.txt", new ByteArrayInputStream("Hello again".getBytes()));
+		assertThat(service.load("foo.txt")).hasContent("Hello again");
+	}
+
+	@Test
+	public void streamNotPermitted() {
+		assertThrows(StorageException.class, () -> {
+			service.store("../foo.txt", new ByteArrayInputStream("Hello, World".getBytes()));
+		});
+	}
+
+	@Test
+	public void streamAbsoluteNameNotPermitted() {
+		Path outside = Paths.get("target/files/outside-" + Math.abs(new Random().nextLong())).toAbsolutePath();
+		assertThrows(StorageException.class, () -> {
+			service.store(outside.toString(), new ByteArrayInputStream("Hello, World".getBytes()));
+		});
+		assertThat(outside).doesNotExist();
+	}
+
+	@Test
+	public void streamIntoSubDirectoryNotPermitted() {
+		assertThrows(StorageException.class, () -> {
+			service.store("sub/dir/foo.txt", new ByteArrayInputStream("Hello, World".getBytes()));
+		});
+		assertThat(Paths.get(properties.getLocation()).toFile().list()).isEmpty();
+	}
+
+	@Test
+	public void streamTooLarge() {
+		properties.setMaxFileSize(DataSize.ofBytes(5));
+		service = new FileSystemStorageService(properties);
+		assertThrows(StorageSizeLimitExceededException.class, () -> {
+			service.store("foo.txt", new ByteArrayInputStream("Hello, World".getBytes()));
+		});
+		assertThat(service.load("foo.txt")).doesNotExist();
+		assertThat(service.loadAll()).isEmpty();
+		assertThat(Paths.get(properties.getLocation()).toFile().list()).isEmpty();
+	}
+
+	@Test
+	public void loadMetadataOfStoredFile() {
+		StoredFile stored = service.store("foo.txt", new ByteArrayInputStream("Hello, World".getBytes()));
+		StoredFile loaded = service.loadMetadata("foo.txt");
+		assertThat(loaded.getSha256()).isEqualTo(stored.getSha256());
+		assertThat(loaded.getSize()).isEqualTo(12);
+		assertThat(loaded.getLastModified()).isEqualTo(service.load("foo.txt").toFile().lastModified());
+	}
+
+	@Test
+	public void loadMetadataOfChangedFile() throws Exception {
+		service.store("foo.txt", new ByteArrayInputStream("Hello, World".getBytes()));
+		Files.write(service.load("foo.txt"), "Hello again".getBytes());
+		assertThat(service.loadMetadata("foo.txt").getSha256())
+				.isEqualTo("c45705cb99bf37cc8741849696c3da3d33c0c3fb5ca78887dbdbe9001b03e627");
+	}
+
+	@Test
+	public void loadMetadataOfMissingFile() {
+		assertThrows(StorageFileNotFoundException.class, () -> service.loadMetadata("foo.txt"));
+	}
+
+	@Test
+	public void loadPageInOrder() {
+		service.store("b.txt", new ByteArrayInputStream("12".getBytes()));
+		service.store("c.txt", new ByteArrayInputStream("1".getBytes()));
+		service.store("a.txt", new ByteArrayInputStream("123".getBytes()));
+		assertThat(service.loadPage(FileSort.NAME, false, 0, 2).getFiles()).extracting(StoredFile::getFilename)
+				.containsExactly("a.txt", "b.txt");
+		assertThat(service.loadPage(FileSort.NAME, false, 1, 2).getFiles()).extracting(StoredFile::getFilename)
+				.containsExactly("c.txt");
+		assertThat(service.loadPage(FileSort.SIZE, true, 0, 2).getFiles()).extracting(StoredFile::getFilename)
+				.containsExactly("a.txt", "b.txt");
+		StoredFilePage page = service.loadPage(FileSort.SIZE, false, 0, 2);
+		assertThat(page.getFiles()).extracting(StoredFile::getFilename).containsExactly("c.txt", "b.txt");
+		assertThat(page.getTotalFiles()).isEqualTo(3);
+		assertThat(page.getTotalPages()).isEqualTo(2);
+		assertThat(page.hasNext()).isTrue();
+		assertThat(service.loadPage(FileSort.NAME, false, 5, 2).getFiles()).isEmpty();
+	}
+
+	@Test
+	public void indexFilesChangedOutsideTheService() throws Exception {
+		Files.write(service.load("foo.txt"), "Hello, World".getBytes());
+		// the file may be indexed empty first, when it was created but not yet written
+		waitForIndex(page -> page.getTotalFiles() == 1 && page.getFiles().get(0).getSize() == 12);
+		assertThat(service.loadPage(FileSort.NAME, false, 0, 10).getFiles()).extracting(StoredFile::getFilename)
+				.containsExactly("foo.txt");
+		assertThat(service.loadMetadata("foo.txt").getSha256())
+				.isEqualTo("03675ac53ff9cd1535ccc7dfcdfa2c458c5218371f418dc136f2d19ac1fbe8a5");
+
+		Files.delete(service.load("foo.txt"));
+		waitForIndex(page -> page.getTotalFiles() == 0);
+	}
+
+	@Test
+	public void indexExistingFilesOnInit() throws Exception {
+		service.destroy();
+		Files.write(service.load("foo.txt"), "Hello, World".getBytes());
+		service = new FileSystemStorageService(properties);
+		service.init();
+		assertThat(service.loadAll()).containsExactly(Paths.get("foo.txt"));
+	}
+
+	// the polling WatchService of some platforms, such as macOS, only looks every 10 seconds
+	private void waitForIndex(Predicate<StoredFilePage> condition) throws InterruptedException {
+		for (int i = 0; i < 600 && !condition.test(service.loadPage(FileSort.NAME, false, 0, 10)); i++) {
+			Thread.sleep(50);
+		}
+		assertThat(service.loadPage(FileSort.NAME, false, 0, 10)).matches(condition);
+	}
+
+	@Test
+	public void streamEmpty() {
+		assertThrows(StorageException.class, () -> {
+			service.store("foo.txt", new ByteArrayInputStream(new byte[0]));
+		});
+		assertThat(Paths.get(properties.getLocation()).toFile().list()).isEmpty();
+	}
+
+	private static String sha256(byte[] content) throws Exception {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
 }